@@ -0,0 +1,83 @@
+package com.matyrobbrt.jdahelper.components;
+
+import com.matyrobbrt.jdahelper.components.storage.SqlComponentStorage;
+import com.matyrobbrt.jdahelper.components.storage.SqlDialect;
+import org.jdbi.v3.core.Jdbi;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the insert throughput of {@link ComponentIdGenerator#RANDOM random} and {@link ComponentIdGenerator#TIME_ORDERED time-ordered} IDs
+ * into the primary key index of a {@link SqlComponentStorage} backed by an embedded H2 database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComponentIdGeneratorBenchmark {
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"RANDOM", "TIME_ORDERED"})
+    public String generatorType;
+
+    /**
+     * The amount of components in the table before the measured inserts, so that they don't all land in a small index.
+     */
+    @Param({"100000"})
+    public int existingComponents;
+
+    private ComponentIdGenerator generator;
+    private Jdbi jdbi;
+    private SqlComponentStorage storage;
+
+    @Setup
+    public void setup() {
+        generator = generatorType.equals("RANDOM") ? ComponentIdGenerator.RANDOM : ComponentIdGenerator.TIME_ORDERED;
+        jdbi = Jdbi.create("jdbc:h2:mem:ids_" + generatorType + ";DB_CLOSE_DELAY=-1");
+        storage = SqlComponentStorage.builder(jdbi, "components")
+                .dialect(SqlDialect.H2)
+                .schema(SqlComponentStorage.SchemaMode.MIGRATE)
+                .build();
+
+        final var existing = new ArrayList<Component>(existingComponents);
+        for (int i = 0; i < existingComponents; i++) {
+            existing.add(new Component("feature", generator.generate(), List.of()));
+        }
+        storage.insertComponents(existing);
+    }
+
+    @TearDown
+    public void tearDown() {
+        jdbi.useHandle(handle -> handle.execute("shutdown"));
+    }
+
+    /**
+     * Inserts the components in batches, so that the cost of opening a connection for each insert doesn't hide the cost of updating the index.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void insert() {
+        final var components = new ArrayList<Component>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            components.add(new Component("feature", generator.generate(), List.of("853270691176906802")));
+        }
+        storage.insertComponents(components);
+    }
+}
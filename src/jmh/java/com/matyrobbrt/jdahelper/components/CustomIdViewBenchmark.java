@@ -0,0 +1,69 @@
+package com.matyrobbrt.jdahelper.components;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares parsing custom IDs by {@link Component#splitId(String) splitting} them and parsing the {@link UUID}, like dispatches used to,
+ * with parsing them into a {@link CustomIdView}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CustomIdViewBenchmark {
+
+    /**
+     * The format of the custom ID. {@code FOREIGN} IDs were not created by a component listener, and are ignored by dispatches.
+     */
+    @Param({"LEGACY", "COMPACT", "FOREIGN"})
+    public String format;
+
+    private String customId;
+
+    @Setup
+    public void setup() {
+        final var id = UUID.randomUUID();
+        customId = switch (format) {
+            case "LEGACY" -> Component.createIdWithArguments(id, "853270691176906802", "next");
+            case "COMPACT" -> Component.createCompactIdWithArguments(id, "853270691176906802", "next");
+            default -> "ticket-close:853270691176906802";
+        };
+    }
+
+    @Benchmark
+    public void splitAndParse(final Blackhole blackhole) {
+        final var parts = Component.splitId(customId);
+        try {
+            blackhole.consume(Component.parseId(parts[0]));
+        } catch (IllegalArgumentException ignored) {
+            // Foreign IDs were rejected by the exception
+            return;
+        }
+        blackhole.consume(Arrays.asList(parts).subList(1, parts.length).get(0));
+    }
+
+    @Benchmark
+    public void view(final Blackhole blackhole) {
+        final var view = CustomIdView.parse(customId);
+        if (!view.isValid()) return;
+        blackhole.consume(view.getUuid());
+        blackhole.consume(view.getArguments().get(0));
+    }
+}
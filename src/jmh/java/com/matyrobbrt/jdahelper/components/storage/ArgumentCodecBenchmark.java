@@ -0,0 +1,67 @@
+package com.matyrobbrt.jdahelper.components.storage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link ArgumentCodec#JSON JSON} and {@link ArgumentCodec#BINARY binary} argument codecs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArgumentCodecBenchmark {
+
+    @Param({"1", "4", "16"})
+    public int argumentCount;
+
+    private List<String> arguments;
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup
+    public void setup() {
+        arguments = new ArrayList<>(argumentCount);
+        for (int i = 0; i < argumentCount; i++) {
+            // A mix of the IDs and small numbers components usually store
+            arguments.add(i % 2 == 0 ? String.valueOf(853270691176906802L + i) : String.valueOf(i * 25));
+        }
+        json = ArgumentCodec.JSON.encode(arguments);
+        binary = ArgumentCodec.BINARY.encode(arguments);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() {
+        return ArgumentCodec.JSON.encode(arguments);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return ArgumentCodec.BINARY.encode(arguments);
+    }
+
+    @Benchmark
+    public List<String> decodeJson() {
+        return ArgumentCodec.JSON.decode(json);
+    }
+
+    @Benchmark
+    public List<String> decodeBinary() {
+        return ArgumentCodec.BINARY.decode(binary);
+    }
+}
@@ -42,34 +42,49 @@ public final class DismissListener implements EventListener {
         if (!(gEvent instanceof ButtonInteractionEvent event))
             return;
 
-        final Button button = event.getButton();
-        if (button.getId() == null || button.getId().isBlank()) {
+        final String id = event.getButton().getId();
+        if (id == null || !id.startsWith(BUTTON_PREFIX)) {
             return;
         }
-        final var idParts = button.getId().split("-");
-        if (!idParts[0].equals(BUTTON_PREFIX)) {
-            return;
+        // Parse the `dismiss[-userId[-commandMessageId]]` format by hand, ignoring trailing dashes
+        int end = id.length();
+        while (end > BUTTON_PREFIX.length() && id.charAt(end - 1) == '-') {
+            end--;
         }
-        switch (idParts.length) {
+        if (end == BUTTON_PREFIX.length()) {
             // dismiss
-            case 1 -> {
-                if (event.getMessage().getInteraction() != null) {
-                    final var owner = event.getMessage().getInteraction().getUser();
-                    deleteIf(owner.getId(), event).queue();
-                }
+            if (event.getMessage().getInteraction() != null) {
+                final var owner = event.getMessage().getInteraction().getUser();
+                deleteIf(owner.getId(), event).queue();
             }
+            return;
+        }
+        if (id.charAt(BUTTON_PREFIX.length()) != '-') {
+            return;
+        }
+
+        final int ownerStart = BUTTON_PREFIX.length() + 1;
+        final int ownerEnd = indexOf(id, '-', ownerStart, end);
+        if (ownerEnd == end) {
             // dismiss-userId
-            case 2 -> deleteIf(idParts[1], event).queue();
+            deleteIf(id.substring(ownerStart, end), event).queue();
+        } else if (indexOf(id, '-', ownerEnd + 1, end) == end) {
             // dismiss-userId-commandMessageId
-            case 3 -> deleteIf(idParts[1], event)
-                    .and(event.getChannel().retrieveMessageById(idParts[2])
+            final var owner = id.substring(ownerStart, ownerEnd);
+            deleteIf(owner, event)
+                    .and(event.getChannel().retrieveMessageById(id.substring(ownerEnd + 1, end))
                             .flatMap(m -> m.delete().reason("User dismissed the command"))
-                            .addCheck(() -> canDelete(idParts[1], event))
+                            .addCheck(() -> canDelete(owner, event))
                     )
                     .queue();
         }
     }
 
+    private static int indexOf(final String string, final char c, final int from, final int end) {
+        final int index = string.indexOf(c, from);
+        return index == -1 || index > end ? end : index;
+    }
+
     private static RestAction<?> deleteIf(final String targetId, final ButtonInteractionEvent event) {
         if (canDelete(targetId, event)) {
             return event.getMessage().delete().reason("User dismissed the message");
@@ -1,5 +1,6 @@
 package com.matyrobbrt.jdahelper.components;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 
@@ -13,10 +14,47 @@ public record Component(String featureId, UUID uuid, List<String> arguments, Lif
     /**
      * Button IDs will be split on this string, and only the first one will be used as the component ID,
      * in order to allow other arguments in the button itself, or to allow multiple buttons
-     * with the same component ID.
+     * with the same component ID. <br>
+     * This is the splitter of the legacy ID format, which uses the {@link UUID#toString() 36-character} form of the component UUID.
+     * New IDs use the {@link #COMPACT_ID_SPLITTER} instead, but both formats are accepted when parsing.
      */
     public static final String ID_SPLITTER = "//";
 
+    /**
+     * The splitter used by the compact ID format, in which the component UUID is encoded as 22 characters of URL-safe base64. <br>
+     * This character is not part of the base64 alphabet, so it can never appear in the component ID itself.
+     */
+    public static final char COMPACT_ID_SPLITTER = '|';
+
+    /**
+     * The first character of {@link #toCompactId(UUID) compact} component IDs. <br>
+     * This marks the ID as a component ID, so that IDs of other buttons which happen to be valid base64 aren't mistaken for components.
+     */
+    public static final char COMPACT_ID_PREFIX = '$';
+
+    /**
+     * The length of a {@link #toCompactId(UUID) compact} component ID, including its {@link #COMPACT_ID_PREFIX prefix}.
+     */
+    public static final int COMPACT_ID_LENGTH = 23;
+
+    /**
+     * The separator between the storage tag and the component ID, in the IDs of components whose feature is
+     * {@link ComponentManager.Builder#routeStorage(String, com.matyrobbrt.jdahelper.components.storage.ComponentStorage, String...) routed}
+     * to another storage than the default one of the manager, for example {@code tmp.$AZF1c2VyLTAxOS1leGFtcGxl}. <br>
+     * This character is not part of the base64 alphabet, nor of the legacy ID format.
+     */
+    public static final char STORAGE_TAG_SEPARATOR = '.';
+
+    private static final char[] BASE64_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+    static final byte[] BASE64_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(BASE64_VALUES, (byte) -1);
+        for (int i = 0; i < BASE64_ALPHABET.length; i++) {
+            BASE64_VALUES[BASE64_ALPHABET[i]] = (byte) i;
+        }
+    }
+
     /**
      * Creates a button ID with the specified {@code id} as the component ID, and
      * the other arguments being split from the component ID using the {@link #ID_SPLITTER}.
@@ -24,6 +62,7 @@ public record Component(String featureId, UUID uuid, List<String> arguments, Lif
      * @param id        the component id
      * @param arguments other arguments
      * @return a composed ID, with the arguments being split from the component ID using the {@link #ID_SPLITTER}
+     * @see #createCompactIdWithArguments(String, Object...)
      */
     public static String createIdWithArguments(final String id, final Object... arguments) {
         StringBuilder actualId = new StringBuilder(id);
@@ -40,15 +79,123 @@ public record Component(String featureId, UUID uuid, List<String> arguments, Lif
      * @param id        the component id
      * @param arguments other arguments
      * @return a composed ID, with the arguments being split from the component ID using the {@link #ID_SPLITTER}
+     * @see #createCompactIdWithArguments(UUID, Object...)
      */
     public static String createIdWithArguments(final UUID id, final Object... arguments) {
-        StringBuilder actualId = new StringBuilder(id.toString());
+        return createIdWithArguments(id.toString(), arguments);
+    }
+
+    /**
+     * Creates a button ID with the {@link #toCompactId(UUID) compact} form of the specified {@code id} as the component ID, and
+     * the other arguments being split from the component ID using the {@link #COMPACT_ID_SPLITTER}.
+     *
+     * @param id        the component id
+     * @param arguments other arguments
+     * @return a composed ID, with the arguments being split from the component ID using the {@link #COMPACT_ID_SPLITTER}
+     */
+    public static String createCompactIdWithArguments(final UUID id, final Object... arguments) {
+        return createCompactIdWithArguments(toCompactId(id), arguments);
+    }
+
+    /**
+     * Creates a button ID with the specified {@code id} as the component ID, and
+     * the other arguments being split from the component ID using the {@link #COMPACT_ID_SPLITTER}. <br>
+     * The {@code id} must not contain the {@link #COMPACT_ID_SPLITTER} or a {@code /}.
+     *
+     * @param id        the component id
+     * @param arguments other arguments
+     * @return a composed ID, with the arguments being split from the component ID using the {@link #COMPACT_ID_SPLITTER}
+     */
+    public static String createCompactIdWithArguments(final String id, final Object... arguments) {
+        StringBuilder actualId = new StringBuilder(id);
         for (final var arg : arguments) {
-            actualId.append(ID_SPLITTER).append(arg);
+            actualId.append(COMPACT_ID_SPLITTER).append(arg);
         }
         return actualId.toString();
     }
 
+    /**
+     * Encodes the {@code uuid} as the {@link #COMPACT_ID_PREFIX}, followed by 22 characters of URL-safe base64, without padding.
+     *
+     * @param uuid the UUID to encode
+     * @return the compact ID
+     */
+    public static String toCompactId(final UUID uuid) {
+        final long msb = uuid.getMostSignificantBits();
+        final long lsb = uuid.getLeastSignificantBits();
+        final char[] chars = new char[COMPACT_ID_LENGTH];
+        chars[0] = COMPACT_ID_PREFIX;
+        // The first 10 characters hold 60 bits of the msb, the 11th holds the remaining 4 bits and the first 2 of the lsb
+        for (int i = 0; i < 10; i++) {
+            chars[1 + i] = BASE64_ALPHABET[(int) (msb >>> (58 - i * 6)) & 0x3F];
+        }
+        chars[11] = BASE64_ALPHABET[(int) ((msb & 0xF) << 2 | lsb >>> 62)];
+        for (int i = 0; i < 10; i++) {
+            chars[12 + i] = BASE64_ALPHABET[(int) (lsb >>> (56 - i * 6)) & 0x3F];
+        }
+        // The last character holds the remaining 2 bits, followed by 4 bits of padding
+        chars[22] = BASE64_ALPHABET[(int) (lsb & 0x3) << 4];
+        return new String(chars);
+    }
+
+    /**
+     * Parses a component UUID, in either the {@link #toCompactId(UUID) compact} or the {@link UUID#toString() legacy} format.
+     *
+     * @param id the ID to parse
+     * @return the parsed UUID
+     * @throws IllegalArgumentException if the ID is in neither format
+     */
+    public static UUID parseId(final String id) {
+        if (id.length() != COMPACT_ID_LENGTH || id.charAt(0) != COMPACT_ID_PREFIX) {
+            return UUID.fromString(id);
+        }
+        long msb = 0;
+        for (int i = 1; i < 11; i++) {
+            msb = msb << 6 | base64Value(id, i);
+        }
+        final int middle = base64Value(id, 11);
+        msb = msb << 4 | middle >>> 2;
+        long lsb = middle & 0x3;
+        for (int i = 12; i < 22; i++) {
+            lsb = lsb << 6 | base64Value(id, i);
+        }
+        final int last = base64Value(id, 22);
+        if ((last & 0xF) != 0) {
+            throw new IllegalArgumentException("Invalid compact component ID: " + id);
+        }
+        return new UUID(msb, lsb << 2 | last >>> 4);
+    }
+
+    /**
+     * Splits a custom ID into the component ID, followed by the arguments of the ID. <br>
+     * Arguments are split using the splitter that follows the component ID, so IDs in
+     * both the {@link #COMPACT_ID_SPLITTER compact} and {@link #ID_SPLITTER legacy} formats are accepted.
+     *
+     * @param customId the custom ID to split
+     * @return the component ID, followed by the arguments
+     */
+    public static String[] splitId(final String customId) {
+        // Neither the base64 nor the UUID form of an ID contains a '/' or the compact splitter, so the first one found is the splitter
+        for (int i = 0; i < customId.length(); i++) {
+            final char c = customId.charAt(i);
+            if (c == COMPACT_ID_SPLITTER) {
+                return customId.split("\\" + COMPACT_ID_SPLITTER, -1);
+            } else if (c == '/') {
+                return customId.split(ID_SPLITTER);
+            }
+        }
+        return new String[] {customId};
+    }
+
+    private static int base64Value(final String id, final int index) {
+        final char c = id.charAt(index);
+        final byte value = c < 128 ? BASE64_VALUES[c] : -1;
+        if (value < 0) {
+            throw new IllegalArgumentException("Invalid compact component ID: " + id);
+        }
+        return value;
+    }
+
     /**
      * Creates a component with a {@link Lifespan#TEMPORARY temporary lifespan}.
      *
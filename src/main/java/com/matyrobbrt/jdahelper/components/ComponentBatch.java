@@ -0,0 +1,85 @@
+package com.matyrobbrt.jdahelper.components;
+
+import com.matyrobbrt.jdahelper.components.context.ButtonInteractionContext;
+import com.matyrobbrt.jdahelper.components.context.ModalInteractionContext;
+import com.matyrobbrt.jdahelper.components.context.SelectMenuInteractionContext;
+import com.matyrobbrt.jdahelper.components.storage.ComponentStorage;
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A view of a {@link ComponentListener} which collects the components it creates, instead of inserting them one by one. <br>
+ * The collected components are inserted once the batch is {@link #submit() submitted}, using {@link ComponentStorage#insertComponents(java.util.Collection)},
+ * so that a message with multiple components costs a single round-trip to the storage.
+ * <p>
+ * Example usage:
+ * <pre>{@code
+ * final var batch = listener.batch();
+ * final var buttons = ActionRow.of(
+ *         batch.createButton(ButtonStyle.PRIMARY, "Yes", null, Component.Lifespan.TEMPORARY, List.of("yes")),
+ *         batch.createButton(ButtonStyle.DANGER, "No", null, Component.Lifespan.TEMPORARY, List.of("no"))
+ * );
+ * batch.submit();
+ * }</pre>
+ * Batches are not thread-safe, and should not be {@link ComponentManager#addListener(ComponentListener) registered}.
+ */
+@ParametersAreNonnullByDefault
+public final class ComponentBatch extends ComponentListener {
+    private final ComponentListener listener;
+    private final List<Component> components = new ArrayList<>();
+
+    ComponentBatch(final ComponentListener listener) {
+        super(listener.getName());
+        this.listener = listener;
+        setManager(listener.getManager());
+    }
+
+    /**
+     * Adds a component to this batch. It will be inserted once the batch is {@link #submit() submitted}.
+     *
+     * @param component the component to insert
+     */
+    @Override
+    public void insertComponent(final Component component) {
+        components.add(component);
+    }
+
+    /**
+     * Gets the components collected by this batch, which weren't submitted yet.
+     *
+     * @return the pending components
+     */
+    @NotNull
+    public List<Component> getComponents() {
+        return Collections.unmodifiableList(components);
+    }
+
+    /**
+     * Inserts all the components collected by this batch into the database, at once. <br>
+     * The batch can be reused afterwards.
+     */
+    public void submit() {
+        if (components.isEmpty()) return;
+        getManager().getStorage(getName()).insertComponents(List.copyOf(components));
+        components.clear();
+    }
+
+    @Override
+    public void onButtonInteraction(final ButtonInteractionContext context) {
+        listener.onButtonInteraction(context);
+    }
+
+    @Override
+    public void onSelectMenuInteraction(final SelectMenuInteractionContext<?, ?, ?> context) {
+        listener.onSelectMenuInteraction(context);
+    }
+
+    @Override
+    public void onModalInteraction(final ModalInteractionContext context) {
+        listener.onModalInteraction(context);
+    }
+}
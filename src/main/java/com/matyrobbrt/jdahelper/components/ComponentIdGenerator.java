@@ -0,0 +1,69 @@
+package com.matyrobbrt.jdahelper.components;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.Nullable;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates the {@link Component#uuid() IDs} of new components. <br>
+ * The generator of a manager can be configured using {@link ComponentManager.Builder#idGenerator(ComponentIdGenerator)},
+ * and defaults to {@link #TIME_ORDERED}, or to {@link #RANDOM} for managers created with the {@link ComponentManager#ComponentManager(com.matyrobbrt.jdahelper.components.storage.ComponentStorage, java.util.List) constructor}.
+ */
+@FunctionalInterface
+public interface ComponentIdGenerator {
+
+    /**
+     * A generator of random (version 4) UUIDs, which uses a {@link java.security.SecureRandom}.
+     */
+    ComponentIdGenerator RANDOM = UUID::randomUUID;
+
+    /**
+     * A generator of time-ordered (version 7) UUIDs. <br>
+     * The first 48 bits of the IDs are the time they were generated at, in milliseconds since the epoch,
+     * followed by a 12-bit counter, which keeps the IDs generated by this generator monotonic even within the same millisecond. <br>
+     * Because new IDs are always greater than old ones, they are appended to the end of B-tree indexes instead of being
+     * scattered randomly across them. The remaining 62 bits are random.
+     *
+     * @see #timestampOf(UUID)
+     */
+    ComponentIdGenerator TIME_ORDERED = new ComponentIdGenerator() {
+        // The millisecond timestamp, followed by the 12 bits of the counter
+        private final AtomicLong lastTime = new AtomicLong();
+
+        @Override
+        public @NotNull UUID generate() {
+            final long now = System.currentTimeMillis() << 12;
+            // If the counter overflows, the timestamp is borrowed from the next millisecond
+            final long time = lastTime.updateAndGet(last -> Math.max(last + 1, now));
+            final long msb = (time >>> 12) << 16 | 0x7000L | (time & 0xFFF);
+            final long lsb = ThreadLocalRandom.current().nextLong() >>> 2 | 0x8000000000000000L;
+            return new UUID(msb, lsb);
+        }
+    };
+
+    /**
+     * Generates a new ID.
+     *
+     * @return the ID
+     */
+    @NotNull
+    UUID generate();
+
+    /**
+     * Gets the time a {@link #TIME_ORDERED time-ordered} ID was generated at.
+     *
+     * @param id the ID
+     * @return the time the ID was generated at, or {@code null} if the ID is not time-ordered
+     */
+    @Nullable
+    static Instant timestampOf(final UUID id) {
+        if (id.version() != 7) {
+            return null;
+        }
+        return Instant.ofEpochMilli(id.getMostSignificantBits() >>> 16);
+    }
+}
@@ -0,0 +1,241 @@
+package com.matyrobbrt.jdahelper.components;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An interceptor of the interactions a {@link ComponentManager} dispatches, which can stop an interaction from reaching its listener. <br>
+ * Interceptors run in two stages:
+ * <ol>
+ *     <li>{@link #beforeLookup(Interaction) before the lookup}, with only the parsed custom ID and its item component arguments known.
+ *     Rejecting an interaction in this stage doesn't touch the storage at all, which makes it the place for cheap checks, like the ones of the
+ *     {@link #ownerOnly(int) built-in} interceptors</li>
+ *     <li>{@link #afterLookup(Interaction, Component) after the lookup}, once the component of the interaction is known</li>
+ * </ol>
+ * Interceptors are {@link ComponentManager.Builder#addInterceptors(ComponentInterceptor...) registered} to the manager, and run in
+ * the order they were registered in, until one of them doesn't {@link Decision#proceed() proceed}.
+ * An interceptor which throws stops the interaction as well, which is then answered with an ephemeral error message. <br>
+ * Interceptors of the first stage run on the thread which received the event, so they should not block.
+ */
+@ParametersAreNonnullByDefault
+public interface ComponentInterceptor {
+
+    /**
+     * Intercepts an interaction before its component is looked up.
+     *
+     * @param interaction the interaction
+     * @return the decision on the interaction
+     */
+    @NotNull
+    default Decision beforeLookup(final Interaction interaction) {
+        return Decision.proceed();
+    }
+
+    /**
+     * Intercepts an interaction once its component was looked up, before it is handled by the listener of the component.
+     *
+     * @param interaction the interaction
+     * @param component   the component of the interaction
+     * @return the decision on the interaction
+     */
+    @NotNull
+    default Decision afterLookup(final Interaction interaction, final Component component) {
+        return Decision.proceed();
+    }
+
+    /**
+     * Creates an interceptor which only lets the owner of a component interact with it. <br>
+     * The ID of the owner is read from the item component argument at the given index, like {@link com.matyrobbrt.jdahelper.pagination.Paginator paginators}
+     * store it. Interactions with item components which don't have an argument holding an ID at that index proceed, as they have no owner. <br>
+     * Interactions of other users are {@link Decision#defer() deferred}. As the interceptor runs on all the interactions of the manager,
+     * all the item components of the manager which have an argument at that index should store their owner in it.
+     *
+     * @param argumentIndex the index of the item component argument which holds the ID of the owner
+     * @return the interceptor
+     */
+    @NotNull
+    static ComponentInterceptor ownerOnly(final int argumentIndex) {
+        return new ComponentInterceptor() {
+            @Override
+            public @NotNull Decision beforeLookup(Interaction interaction) {
+                final var arguments = interaction.getItemComponentArguments();
+                if (argumentIndex >= arguments.size() || !isSnowflake(arguments.get(argumentIndex))) {
+                    return Decision.proceed();
+                }
+                return Long.parseLong(arguments.get(argumentIndex)) == interaction.getUser().getIdLong() ? Decision.proceed() : Decision.defer();
+            }
+        };
+    }
+
+    /**
+     * Creates an interceptor which only lets a user interact with the components of the manager once per {@code cooldown}. <br>
+     * Interactions during the cooldown are {@link Decision#reject(String) rejected}. The cooldown is shared by all the components of the manager.
+     *
+     * @param cooldown the time a user has to wait between interactions
+     * @return the interceptor
+     */
+    @NotNull
+    static ComponentInterceptor cooldown(final Duration cooldown) {
+        final Cache<Long, Long> lastInteractions = Caffeine.newBuilder()
+                .expireAfterWrite(cooldown)
+                .build();
+        return new ComponentInterceptor() {
+            @Override
+            public @NotNull Decision beforeLookup(Interaction interaction) {
+                final long now = System.nanoTime();
+                final var last = lastInteractions.asMap().putIfAbsent(interaction.getUser().getIdLong(), now);
+                if (last == null) {
+                    return Decision.proceed();
+                }
+                final long remaining = Math.max(1, Duration.ofNanos(cooldown.toNanos() - (now - last)).toSeconds());
+                return Decision.reject("You are doing this too fast! Please try again in " + remaining + " seconds.");
+            }
+        };
+    }
+
+    /**
+     * Creates an interceptor which only lets interactions from the given guilds through. <br>
+     * Interactions from other guilds, and from direct messages, are {@link Decision#reject(String) rejected}.
+     *
+     * @param guildIds the IDs of the allowed guilds
+     * @return the interceptor
+     */
+    @NotNull
+    static ComponentInterceptor allowGuilds(final Collection<Long> guildIds) {
+        final var allowed = Set.copyOf(guildIds);
+        return new ComponentInterceptor() {
+            @Override
+            public @NotNull Decision beforeLookup(Interaction interaction) {
+                final var guild = interaction.getGuild();
+                return guild != null && allowed.contains(guild.getIdLong()) ? Decision.proceed() : Decision.reject("This " + interaction.type() + " can't be used here.");
+            }
+        };
+    }
+
+    private static boolean isSnowflake(final String argument) {
+        if (argument.isEmpty() || argument.length() > 19) return false;
+        for (int i = 0; i < argument.length(); i++) {
+            if (argument.charAt(i) < '0' || argument.charAt(i) > '9') return false;
+        }
+        return argument.length() < 19 || argument.compareTo(String.valueOf(Long.MAX_VALUE)) <= 0;
+    }
+
+    /**
+     * An interaction being intercepted.
+     *
+     * @param event    the event of the interaction
+     * @param customId the parsed custom ID of the component
+     * @param type     the type of the component, used in replies, like {@code button}
+     */
+    record Interaction(IReplyCallback event, CustomIdView customId, String type) {
+        /**
+         * @return the user who triggered the interaction
+         */
+        @NotNull
+        public User getUser() {
+            return event.getUser();
+        }
+
+        /**
+         * @return the guild the interaction was triggered in, or {@code null} if it was triggered in direct messages
+         */
+        @Nullable
+        public Guild getGuild() {
+            return event.getGuild();
+        }
+
+        /**
+         * @return the arguments stored in the custom ID of the component
+         * @see CustomIdView#getArguments()
+         */
+        @NotNull
+        public List<String> getItemComponentArguments() {
+            return customId.getArguments();
+        }
+    }
+
+    /**
+     * The decision of an interceptor on an interaction.
+     *
+     * @param type    the type of the decision
+     * @param message the message the interaction is rejected with, which is required if the decision is a {@link Type#REJECT rejection}
+     */
+    record Decision(Type type, @Nullable String message) {
+        public Decision {
+            Objects.requireNonNull(type, "type");
+            if (type == Type.REJECT && message == null) {
+                throw new IllegalArgumentException("Rejections require a message!");
+            }
+        }
+
+        private static final Decision PROCEED = new Decision(Type.PROCEED, null);
+        private static final Decision DEFER = new Decision(Type.DEFER, null);
+        private static final Decision HANDLED = new Decision(Type.HANDLED, null);
+
+        /**
+         * @return a decision which lets the interaction through to the next interceptor, and eventually to its listener
+         */
+        @NotNull
+        public static Decision proceed() {
+            return PROCEED;
+        }
+
+        /**
+         * Creates a decision which stops the interaction, replying to it with an ephemeral message.
+         *
+         * @param message the message to reply with
+         * @return the decision
+         */
+        @NotNull
+        public static Decision reject(final String message) {
+            return new Decision(Type.REJECT, message);
+        }
+
+        /**
+         * @return a decision which stops the interaction, acknowledging it without a reply
+         */
+        @NotNull
+        public static Decision defer() {
+            return DEFER;
+        }
+
+        /**
+         * @return a decision which stops the interaction, which the interceptor already acknowledged itself
+         */
+        @NotNull
+        public static Decision handled() {
+            return HANDLED;
+        }
+
+        public enum Type {
+            /**
+             * The interaction goes through.
+             */
+            PROCEED,
+            /**
+             * The interaction is stopped, and answered with an ephemeral message.
+             */
+            REJECT,
+            /**
+             * The interaction is stopped, and acknowledged without a reply.
+             */
+            DEFER,
+            /**
+             * The interaction is stopped, and was acknowledged by the interceptor.
+             */
+            HANDLED
+        }
+    }
+}
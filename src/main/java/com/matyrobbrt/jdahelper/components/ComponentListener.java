@@ -59,9 +59,9 @@ public abstract class ComponentListener {
      */
     @NotNull
     public Button createButton(@NotNull ButtonStyle style, @Nullable String label, @Nullable Emoji emoji, @NotNull Component.Lifespan lifespan, List<String> args) {
-        final var comp = new Component(name, UUID.randomUUID(), args, lifespan);
+        final var comp = new Component(name, generateId(), args, lifespan);
         insertComponent(comp);
-        return Button.of(style, comp.uuid().toString(), label, emoji);
+        return Button.of(style, createId(comp.uuid()), label, emoji);
     }
 
     /**
@@ -74,10 +74,10 @@ public abstract class ComponentListener {
      */
     @NotNull
     public ButtonBuilder createButton(ButtonStyle style, Component.Lifespan lifespan, List<String> args) {
-        final var comp = new Component(name, UUID.randomUUID(), args, lifespan);
+        final var comp = new Component(name, generateId(), args, lifespan);
         insertComponent(comp);
         return ButtonBuilder.builder(style)
-                .idOrUrl(comp.uuid().toString());
+                .idOrUrl(createId(comp.uuid()));
     }
 
     /**
@@ -104,10 +104,10 @@ public abstract class ComponentListener {
      */
     @NotNull
     public ButtonBuilder createButton(ButtonStyle style, Component.Lifespan lifespan, List<String> args, Object... idArguments) {
-        final var comp = new Component(name, UUID.randomUUID(), args, lifespan);
+        final var comp = new Component(name, generateId(), args, lifespan);
         insertComponent(comp);
         return ButtonBuilder.builder(style)
-                .idOrUrl(Component.createIdWithArguments(comp.uuid(), idArguments));
+                .idOrUrl(createId(comp.uuid(), idArguments));
     }
 
     /**
@@ -133,9 +133,9 @@ public abstract class ComponentListener {
      */
     @NotNull
     public Modal.Builder createModal(@NotNull final String label, @NotNull final Component.Lifespan lifespan, final List<String> args) {
-        final var comp = new Component(name, UUID.randomUUID(), args, lifespan);
+        final var comp = new Component(name, generateId(), args, lifespan);
         insertComponent(comp);
-        return Modal.create(comp.uuid().toString(), label);
+        return Modal.create(createId(comp.uuid()), label);
     }
 
     /**
@@ -149,18 +149,128 @@ public abstract class ComponentListener {
      */
     @NotNull
     public Modal.Builder createModal(@NotNull final String label, @NotNull final Component.Lifespan lifespan, final List<String> args, final Object... idArguments) {
-        final var comp = new Component(name, UUID.randomUUID(), args, lifespan);
+        final var comp = new Component(name, generateId(), args, lifespan);
         insertComponent(comp);
-        return Modal.create(Component.createIdWithArguments(comp.uuid(), idArguments), label);
+        return Modal.create(createId(comp.uuid(), idArguments), label);
     }
 
     /**
-     * Inserts a component into the database.
+     * Creates a button whose arguments are encoded in its ID, if they fit. <br>
+     * Otherwise, a component with a random ID is stored, like for {@link #createButton(ButtonStyle, String, Emoji, Component.Lifespan, List)}.
+     *
+     * @param style    the style
+     * @param label    the label
+     * @param emoji    the emoji
+     * @param lifespan the component lifespan, if it needs to be stored
+     * @param args     the component arguments
+     * @return the button
+     * @see #createStatelessId(Component.Lifespan, List, Object...)
+     */
+    @NotNull
+    public Button createStatelessButton(@NotNull ButtonStyle style, @Nullable String label, @Nullable Emoji emoji, @NotNull Component.Lifespan lifespan, List<String> args) {
+        return Button.of(style, createStatelessId(lifespan, args), label, emoji);
+    }
+
+    /**
+     * Creates a new {@link ButtonBuilder} whose arguments are encoded in its ID, if they fit, and the specified button ID arguments. <br>
+     * Otherwise, a component with a random ID is stored, like for {@link #createButton(ButtonStyle, Component.Lifespan, List, Object...)}.
+     *
+     * @param style       the button style
+     * @param lifespan    the component lifespan, if it needs to be stored
+     * @param args        the component arguments
+     * @param idArguments the button's ID arguments
+     * @return the builder
+     * @see #createStatelessId(Component.Lifespan, List, Object...)
+     */
+    @NotNull
+    public ButtonBuilder createStatelessButton(ButtonStyle style, Component.Lifespan lifespan, List<String> args, Object... idArguments) {
+        return ButtonBuilder.builder(style)
+                .idOrUrl(createStatelessId(lifespan, args, idArguments));
+    }
+
+    /**
+     * Creates a modal builder whose arguments are encoded in its ID, if they fit, and the specified modal ID arguments. <br>
+     * Otherwise, a component with a random ID is stored, like for {@link #createModal(String, Component.Lifespan, List, Object...)}.
+     *
+     * @param label       the label of the modal
+     * @param lifespan    the lifespan of the component, if it needs to be stored
+     * @param args        the component's arguments
+     * @param idArguments the modal's ID arguments
+     * @return the modal builder
+     * @see #createStatelessId(Component.Lifespan, List, Object...)
+     */
+    @NotNull
+    public Modal.Builder createStatelessModal(@NotNull final String label, @NotNull final Component.Lifespan lifespan, final List<String> args, final Object... idArguments) {
+        return Modal.create(createStatelessId(lifespan, args, idArguments), label);
+    }
+
+    /**
+     * Creates the ID of a stateless component. Stateless components carry their arguments in their ID, so they
+     * cost no storage writes or lookups. Their arguments cannot be {@link com.matyrobbrt.jdahelper.components.context.InteractionContext#updateArguments(List) updated}. <br>
+     * If the encoded arguments don't fit in the ID, a component with a random ID is stored instead, and the ID of that component is returned.
+     *
+     * @param lifespan    the lifespan of the component, if it needs to be stored
+     * @param args        the arguments of the component
+     * @param idArguments other arguments, which are split from the component ID using the {@link Component#COMPACT_ID_SPLITTER}
+     * @return the ID
+     * @see StatelessComponentCodec
+     */
+    @NotNull
+    public String createStatelessId(@NotNull final Component.Lifespan lifespan, final List<String> args, final Object... idArguments) {
+        final var id = manager.getStatelessCodec().encode(name, args, idArguments);
+        if (id != null) {
+            return id;
+        }
+        final var comp = new Component(name, generateId(), args, lifespan);
+        insertComponent(comp);
+        return createId(comp.uuid(), idArguments);
+    }
+
+    /**
+     * Creates a new {@link ComponentBatch batch} for this listener. Components created using the batch are only
+     * inserted once the batch is {@link ComponentBatch#submit() submitted}, all at once. <br>
+     * This is useful for messages which contain multiple components.
+     *
+     * @return the batch
+     */
+    @NotNull
+    public ComponentBatch batch() {
+        return new ComponentBatch(this);
+    }
+
+    /**
+     * Generates the ID of a new component, using the {@link ComponentManager#getIdGenerator() ID generator} of the manager.
+     *
+     * @return the ID
+     */
+    @NotNull
+    public UUID generateId() {
+        return manager.getIdGenerator().generate();
+    }
+
+    /**
+     * Creates the custom ID of a component of this listener, with the specified ID arguments. <br>
+     * If the feature of this listener is {@link ComponentManager.Builder#routeStorage(String, com.matyrobbrt.jdahelper.components.storage.ComponentStorage, String...) routed}
+     * to another storage, the ID is prefixed with the tag of that storage.
+     *
+     * @param id          the ID of the component
+     * @param idArguments other arguments, which are split from the component ID using the {@link Component#COMPACT_ID_SPLITTER}
+     * @return the custom ID
+     */
+    @NotNull
+    public String createId(final UUID id, final Object... idArguments) {
+        final var tag = manager.getStorageTag(name);
+        final var componentId = tag == null ? Component.toCompactId(id) : tag + Component.STORAGE_TAG_SEPARATOR + Component.toCompactId(id);
+        return Component.createCompactIdWithArguments(componentId, idArguments);
+    }
+
+    /**
+     * Inserts a component into the database, or the storage this listener's feature is {@link ComponentManager#getStorage(String) routed} to.
      *
      * @param component the component to insert
      */
     public void insertComponent(final Component component) {
-        manager.getStorage().insertComponent(component);
+        manager.getStorage(name).insertComponent(component);
     }
 
     /**
@@ -177,6 +287,10 @@ public abstract class ComponentListener {
         return comp;
     }
 
+    ComponentManager getManager() {
+        return manager;
+    }
+
     void setManager(final ComponentManager manager) {
         this.manager = manager;
     }
@@ -1,6 +1,6 @@
 package com.matyrobbrt.jdahelper.components;
 
-import static com.matyrobbrt.jdahelper.components.Component.ID_SPLITTER;
+import com.matyrobbrt.jdahelper.components.storage.AsyncComponentStorage;
 import com.matyrobbrt.jdahelper.components.storage.ComponentStorage;
 import com.matyrobbrt.jdahelper.components.context.ButtonInteractionContext;
 import com.matyrobbrt.jdahelper.components.context.ModalInteractionContext;
@@ -11,30 +11,124 @@ import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.component.GenericSelectMenuInteractionEvent;
 import net.dv8tion.jda.api.hooks.EventListener;
 import net.dv8tion.jda.api.hooks.SubscribeEvent;
+import net.dv8tion.jda.api.interactions.callbacks.IMessageEditCallback;
 import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
 import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import java.security.SecureRandom;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.TemporalUnit;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 /**
  * A {@link ComponentManager} is responsible for tracking {@link Component Components} and dispatching events affecing them to
  * the correct listeners, based on the {@link Component#featureId() component feature ID}.
  */
 public class ComponentManager implements EventListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ComponentManager.class);
+
+    /**
+     * The default time a component lookup may take before the interaction is answered with an error instead. <br>
+     * Discord requires interactions to be acknowledged within 3 seconds, which leaves listeners half a second to reply.
+     */
+    public static final Duration DEFAULT_LOOKUP_TIMEOUT = Duration.ofMillis(2500);
+
+    /**
+     * The system property holding the secret the key of {@link StatelessComponentCodec stateless} components is derived from,
+     * for managers which weren't given a {@link Builder#statelessKey(byte[]) key}.
+     */
+    public static final String STATELESS_SECRET_PROPERTY = "jdahelper.statelessSecret";
+
+    private static final Pattern STORAGE_TAG = Pattern.compile("[A-Za-z0-9]{1,8}");
 
     private final ComponentStorage storage;
-    final Map<String, ComponentListener> listeners = new HashMap<>();
+    private final AsyncComponentStorage asyncStorage;
+    private final Executor dispatchExecutor;
+    /**
+     * The last dispatch of each component with interactions being dispatched, if dispatches are ordered. <br>
+     * Each dispatch waits for the previous one of its component to complete.
+     */
+    @Nullable
+    private final Map<UUID, CompletableFuture<Void>> dispatchQueue;
+    private final Duration lookupTimeout;
+    @Nullable
+    private final ComponentSweeper sweeper;
+    private final StatelessComponentCodec statelessCodec;
+    private final ComponentIdGenerator idGenerator;
+    private final Map<String, StorageRoute> routesByTag = new HashMap<>();
+    private final Map<String, StorageRoute> routesByFeature = new HashMap<>();
+    private final List<ComponentInterceptor> interceptors;
+    /**
+     * An immutable snapshot of the listeners, by their feature ID. <br>
+     * Registering or removing a listener swaps in a new snapshot, so that events are dispatched without locking.
+     */
+    private final AtomicReference<Map<String, ComponentListener>> listeners = new AtomicReference<>(Map.of());
 
+    /**
+     * Creates a manager which looks up components on the {@link #defaultStorageExecutor() default storage executor},
+     * and calls listeners on the thread that completed the lookup. <br>
+     * The key of stateless components is derived from the {@link #STATELESS_SECRET_PROPERTY} system property, or random if it isn't set. <br>
+     * The IDs of new components stay {@link ComponentIdGenerator#RANDOM random}, like they were before the {@link Builder#idGenerator(ComponentIdGenerator) ID generator}
+     * could be configured. The {@link #builder(ComponentStorage) builder} defaults to {@link ComponentIdGenerator#TIME_ORDERED time-ordered} IDs instead.
+     *
+     * @param storage   the storage of the manager
+     * @param listeners the listeners of the manager
+     * @see #builder(ComponentStorage)
+     */
     public ComponentManager(final ComponentStorage storage, final List<ComponentListener> listeners) {
+        this(storage, AsyncComponentStorage.of(storage, defaultStorageExecutor()), Runnable::run, DEFAULT_LOOKUP_TIMEOUT, null, defaultStatelessKey(), ComponentIdGenerator.RANDOM, List.of(), true, List.of(), listeners);
+    }
+
+    ComponentManager(final ComponentStorage storage, final AsyncComponentStorage asyncStorage, final Executor dispatchExecutor, final Duration lookupTimeout, @Nullable final ComponentSweeper sweeper, final byte[] statelessKey, final ComponentIdGenerator idGenerator, final List<StorageRoute> routes, final boolean orderedDispatch, final List<ComponentInterceptor> interceptors, final List<ComponentListener> listeners) {
         this.storage = storage;
+        this.asyncStorage = asyncStorage;
+        this.dispatchExecutor = dispatchExecutor;
+        this.dispatchQueue = orderedDispatch ? new ConcurrentHashMap<>() : null;
+        this.lookupTimeout = lookupTimeout;
+        this.sweeper = sweeper;
+        this.statelessCodec = new StatelessComponentCodec(statelessKey);
+        this.idGenerator = idGenerator;
+        this.interceptors = List.copyOf(interceptors);
+        for (final var route : routes) {
+            routesByTag.put(route.tag(), route);
+            route.featureIds().forEach(featureId -> routesByFeature.put(featureId, route));
+        }
         listeners.forEach(this::addListener);
+        if (sweeper != null) {
+            sweeper.start();
+        }
+        routes.forEach(route -> {
+            if (route.sweeper() != null) {
+                route.sweeper().start();
+            }
+        });
     }
 
     /**
@@ -44,6 +138,89 @@ public class ComponentManager implements EventListener {
         return storage;
     }
 
+    /**
+     * Gets the storage of the components of the given feature. This is the storage the feature is
+     * {@link Builder#routeStorage(String, ComponentStorage, String...) routed} to, or the {@link #getStorage() default storage} of
+     * this manager if the feature isn't routed.
+     *
+     * @param featureId the ID of the feature
+     * @return the storage of the feature
+     */
+    public ComponentStorage getStorage(final String featureId) {
+        final var route = routesByFeature.get(featureId);
+        return route == null ? storage : route.storage();
+    }
+
+    /**
+     * Gets the tag of the storage the given feature is {@link Builder#routeStorage(String, ComponentStorage, String...) routed} to.
+     * The tag is a prefix of the IDs of the components of the feature.
+     *
+     * @param featureId the ID of the feature
+     * @return the tag of the storage of the feature, or {@code null} if the feature uses the {@link #getStorage() default storage}
+     */
+    @Nullable
+    public String getStorageTag(final String featureId) {
+        final var route = routesByFeature.get(featureId);
+        return route == null ? null : route.tag();
+    }
+
+    /**
+     * @return the asynchronous storage this manager uses for looking up the components of interactions
+     */
+    public AsyncComponentStorage getAsyncStorage() {
+        return asyncStorage;
+    }
+
+    /**
+     * Gets the asynchronous storage of the components of the given feature.
+     *
+     * @param featureId the ID of the feature
+     * @return the asynchronous storage of the feature
+     * @see #getStorage(String)
+     */
+    public AsyncComponentStorage getAsyncStorage(final String featureId) {
+        final var route = routesByFeature.get(featureId);
+        return route == null ? asyncStorage : route.asyncStorage();
+    }
+
+    /**
+     * @return the codec used for the IDs of stateless components
+     */
+    public StatelessComponentCodec getStatelessCodec() {
+        return statelessCodec;
+    }
+
+    /**
+     * @return the generator of the IDs of new components
+     */
+    public ComponentIdGenerator getIdGenerator() {
+        return idGenerator;
+    }
+
+    /**
+     * @return the sweeper which removes expired components of this manager, or {@code null} if the manager doesn't have one
+     * @see Builder#sweepComponents(ComponentSweeper.Config, Consumer)
+     */
+    @Nullable
+    public ComponentSweeper getSweeper() {
+        return sweeper;
+    }
+
+    /**
+     * Stops the background tasks of this manager, like its {@link #getSweeper() sweeper}.
+     * The {@link #getStorage() storage} is not closed by this method.
+     */
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.stop();
+        }
+        routesByTag.values().forEach(route -> {
+            if (route.sweeper() != null) {
+                route.sweeper().stop();
+            }
+        });
+    }
+
     /**
      * Removes {@link Component.Lifespan#TEMPORARY temporary} components that are older than the time specified.
      *
@@ -51,91 +228,396 @@ public class ComponentManager implements EventListener {
      * @param unit the unit
      */
     public void removeComponentsOlderThan(final long time, final TemporalUnit unit) {
-        getStorage().removeComponentsLastUsedBefore(Instant.now().minus(time, unit));
+        final var before = Instant.now().minus(time, unit);
+        getStorage().removeComponentsLastUsedBefore(before);
+        routesByTag.values().forEach(route -> route.storage().removeComponentsLastUsedBefore(before));
     }
 
     /**
-     * Adds a listener to this manager.
+     * Adds a listener to this manager. <br>
+     * Listeners can be added while the manager is dispatching events.
      *
      * @param listener the listener
+     * @throws IllegalArgumentException if a listener with the same feature ID exists already
      */
     public void addListener(final ComponentListener listener) {
         final var id = listener.getName();
-        if (listeners.containsKey(id)) {
+        if (listeners.get().containsKey(id)) {
             throw new IllegalArgumentException("Listener with feature ID \"" + id + "\" exists already!");
         }
         listener.setManager(this);
-        listeners.put(id, listener);
+        Map<String, ComponentListener> current;
+        do {
+            current = listeners.get();
+            if (current.containsKey(id)) {
+                throw new IllegalArgumentException("Listener with feature ID \"" + id + "\" exists already!");
+            }
+        } while (!listeners.compareAndSet(current, with(current, id, listener)));
+    }
+
+    /**
+     * Replaces the listener with the same feature ID as the given {@code listener}, or adds the listener if there is none. <br>
+     * Interactions which are already being handled by the old listener are not affected, while the next ones are dispatched to the new listener.
+     * The components of the feature are kept, so that the new listener handles them.
+     *
+     * @param listener the new listener
+     * @return the replaced listener, or {@code null} if there was none
+     */
+    @Nullable
+    public ComponentListener replaceListener(final ComponentListener listener) {
+        final var id = listener.getName();
+        listener.setManager(this);
+        Map<String, ComponentListener> current;
+        do {
+            current = listeners.get();
+        } while (!listeners.compareAndSet(current, with(current, id, listener)));
+        return current.get(id);
+    }
+
+    /**
+     * Removes the listener of a feature from this manager. <br>
+     * Interactions with the components of the feature will be answered with an error until a listener with the same feature ID is added again.
+     *
+     * @param featureId the feature ID of the listener to remove
+     * @return the removed listener, or {@code null} if there was none
+     */
+    @Nullable
+    public ComponentListener removeListener(final String featureId) {
+        Map<String, ComponentListener> current;
+        Map<String, ComponentListener> updated;
+        do {
+            current = listeners.get();
+            if (!current.containsKey(featureId)) {
+                return null;
+            }
+            updated = new HashMap<>(current);
+            updated.remove(featureId);
+        } while (!listeners.compareAndSet(current, Map.copyOf(updated)));
+        return current.get(featureId);
+    }
+
+    /**
+     * Removes the listener of a feature from this manager, optionally {@link #purgeComponents(String) purging} the components of the feature in the background.
+     *
+     * @param featureId       the feature ID of the listener to remove
+     * @param purgeComponents if the components of the feature should be removed from its storage
+     * @return the removed listener, or {@code null} if there was none, in which case the components are not purged
+     * @see #removeListener(String)
+     */
+    @Nullable
+    public ComponentListener removeListener(final String featureId, final boolean purgeComponents) {
+        final var removed = removeListener(featureId);
+        if (removed != null && purgeComponents) {
+            purgeComponents(featureId).whenComplete((count, exception) -> {
+                if (exception != null) {
+                    LOGGER.error("Could not purge the components of feature \"{}\"", featureId, exception);
+                } else {
+                    LOGGER.debug("Purged {} components of feature \"{}\"", count, featureId);
+                }
+            });
+        }
+        return removed;
+    }
+
+    /**
+     * Removes all the components of a feature from its {@link #getAsyncStorage(String) storage}, regardless of their lifespan. <br>
+     * This should only be called once the listener of the feature was {@link #removeListener(String) removed}, as components created in the meantime would survive.
+     *
+     * @param featureId the feature ID of the components to remove
+     * @return a future completed with the amount of removed components, or {@code -1} if the storage cannot tell
+     * @see ComponentStorage#removeComponentsByFeature(String)
+     */
+    @NotNull
+    public CompletableFuture<Integer> purgeComponents(final String featureId) {
+        return getAsyncStorage(featureId).removeComponentsByFeature(featureId);
+    }
+
+    /**
+     * Gets the listener of a feature.
+     *
+     * @param featureId the feature ID of the listener
+     * @return the listener, or {@code null} if there is none
+     */
+    @Nullable
+    public ComponentListener getListener(final String featureId) {
+        return listeners.get().get(featureId);
+    }
+
+    /**
+     * @return an immutable snapshot of the listeners of this manager, by their feature ID
+     */
+    @NotNull
+    public Map<String, ComponentListener> getListeners() {
+        return listeners.get();
+    }
+
+    private static Map<String, ComponentListener> with(final Map<String, ComponentListener> listeners, final String id, final ComponentListener listener) {
+        final var updated = new HashMap<>(listeners);
+        updated.put(id, listener);
+        return Map.copyOf(updated);
     }
 
     @Override
     @SubscribeEvent
     public void onEvent(@NotNull final GenericEvent event) {
-        try {
-            if (event instanceof ButtonInteractionEvent btn) {
-                onButtonInteraction(btn);
-            } else if (event instanceof GenericSelectMenuInteractionEvent<?, ?> sEvent) {
-                onSelectMenuInteraction(sEvent);
-            } else if (event instanceof ModalInteractionEvent mEvent) {
-                onModalInteraction(mEvent);
-            }
-        } catch (IllegalArgumentException | IndexOutOfBoundsException ignored) {
-            // Usually caused by `String#split` or `UUID.fromString`
+        if (event instanceof ButtonInteractionEvent btn) {
+            onButtonInteraction(btn);
+        } else if (event instanceof GenericSelectMenuInteractionEvent<?, ?> sEvent) {
+            onSelectMenuInteraction(sEvent);
+        } else if (event instanceof ModalInteractionEvent mEvent) {
+            onModalInteraction(mEvent);
         }
     }
 
     private void onButtonInteraction(@NotNull final ButtonInteractionEvent event) {
         if (event.getButton().getId() != null) {
-            final var buttonArguments = event.getButton().getId().split(ID_SPLITTER);
-            final var id = UUID.fromString(buttonArguments[0]);
-            getStorage().getComponent(id).ifPresentOrElse(component -> {
-                final var listener = listeners.get(component.featureId());
-                if (listener == null) {
-                    event.deferReply(true).setContent("It seems like I can't handle this button anymore due to its listener being deleted.").queue();
-                } else {
-                    listener.onButtonInteraction(new ButtonInteractionContext.Impl(
-                            event, this, component.uuid(),
-                            component.arguments(), splitItemComponentArguments(buttonArguments)
-                    ));
-                }
-            }, () -> replyWithUnknown(event, "button"));
+            final var buttonId = CustomIdView.parse(event.getButton().getId());
+            dispatch(event, buttonId, "button", (listener, component, stateless) -> listener.onButtonInteraction(new ButtonInteractionContext.Impl(
+                    event, this, component.uuid(),
+                    component.arguments(), buttonId.getArguments(), stateless, getStorage(component.featureId())
+            )));
         }
     }
 
     private void onSelectMenuInteraction(@NotNull final GenericSelectMenuInteractionEvent<?, ?> event) {
-        final var menuArgs = Objects.requireNonNull(event.getSelectMenu().getId()).split(ID_SPLITTER);
-        final var id = UUID.fromString(menuArgs[0]);
-        getStorage().getComponent(id).ifPresentOrElse(component -> {
-            final var listener = listeners.get(component.featureId());
-            if (listener == null) {
-                event.deferReply(true).setContent("It seems like I can't handle this select menu anymore due to its listener being deleted.").queue();
-            } else {
-                listener.onSelectMenuInteraction(new SelectMenuInteractionContext.Impl<>(
-                        event, this, component.uuid(),
-                        component.arguments(), splitItemComponentArguments(menuArgs)
-                ));
-            }
-        }, () -> replyWithUnknown(event, "select menu"));
+        final var menuId = CustomIdView.parse(Objects.requireNonNull(event.getSelectMenu().getId()));
+        dispatch(event, menuId, "select menu", (listener, component, stateless) -> listener.onSelectMenuInteraction(new SelectMenuInteractionContext.Impl<>(
+                event, this, component.uuid(),
+                component.arguments(), menuId.getArguments(), stateless, getStorage(component.featureId())
+        )));
     }
 
     private void onModalInteraction(@NotNull final ModalInteractionEvent event) {
-        final var modalArgs = event.getModalId().split(ID_SPLITTER);
-        final var id = UUID.fromString(modalArgs[0]);
-        getStorage().getComponent(id).ifPresentOrElse(component -> {
-            final var listener = listeners.get(component.featureId());
-            if (listener == null) {
-                event.deferReply(true).setContent("It seems like I can't handle this modal anymore due to its listener being deleted.").queue();
-            } else {
-                listener.onModalInteraction(new ModalInteractionContext.Impl(
-                        event, this, component.uuid(),
-                        component.arguments(), splitItemComponentArguments(modalArgs)
-                ));
+        final var modalId = CustomIdView.parse(event.getModalId());
+        dispatch(event, modalId, "modal", (listener, component, stateless) -> listener.onModalInteraction(new ModalInteractionContext.Impl(
+                event, this, component.uuid(),
+                component.arguments(), modalId.getArguments(), stateless, getStorage(component.featureId())
+        )));
+    }
+
+    /**
+     * Looks up the component with the given {@code id}, and dispatches the interaction to its listener once the lookup completes. <br>
+     * If the lookup doesn't complete within the {@link Builder#lookupTimeout(Duration) lookup timeout} the interaction is answered with an error,
+     * so that it is acknowledged in time. <br>
+     * {@link StatelessComponentCodec Stateless} components are decoded from their ID instead, without touching the storage.
+     * Stateless IDs which fail to decode are ignored, as they were either not created by this manager, or tampered with. <br>
+     * Components whose ID has a {@link Component#STORAGE_TAG_SEPARATOR storage tag} are looked up in the storage with that tag. <br>
+     * Interactions whose ID is in none of the known formats are ignored, as they were not created by a {@link ComponentListener}.
+     */
+    private void dispatch(final IReplyCallback event, final CustomIdView id, final String type, final Handler handler) {
+        if (!id.isValid()) return;
+        final var interaction = interceptors.isEmpty() ? null : new ComponentInterceptor.Interaction(event, id, type);
+        if (interaction != null && !intercept(interaction, null)) return;
+        if (id.isStateless()) {
+            final var component = statelessCodec.decode(id.getComponentId());
+            // IDs that merely start with the stateless prefix may belong to other bots or libraries, so only the ones we signed are answered
+            if (component != null) {
+                schedule(interaction, event, component.uuid(), () -> CompletableFuture.completedFuture(Optional.of(component)), type, true, handler);
+            }
+            return;
+        }
+
+        AsyncComponentStorage lookupStorage = asyncStorage;
+        final var tag = id.getStorageTag();
+        if (tag != null) {
+            final var route = routesByTag.get(tag);
+            if (route == null) {
+                replyWithUnknown(event, type);
+                return;
+            }
+            lookupStorage = route.asyncStorage();
+        }
+
+        final var uuid = id.getUuid();
+        final var storage = lookupStorage;
+        schedule(interaction, event, uuid, () -> storage.getComponent(uuid).copy(), type, false, handler);
+    }
+
+    /**
+     * Dispatches the interaction to the listener of its component on the {@link Builder#dispatchExecutor(Executor) dispatch executor},
+     * once the lookup of the component completes. <br>
+     * If dispatches are {@link Builder#orderedDispatch(boolean) ordered}, the component is looked up only after the previous
+     * interaction with the same component was handled, so that listeners never handle two interactions with the same component at once,
+     * and see the changes the previous interaction made to the component. The {@link Builder#lookupTimeout(Duration) lookup timeout}
+     * only bounds the lookup itself, not the wait for the previous interaction.
+     *
+     * @param lookup starts the lookup of the component
+     */
+    private void schedule(@Nullable final ComponentInterceptor.Interaction interaction, final IReplyCallback event, final UUID id, final Supplier<CompletableFuture<Optional<Component>>> lookup, final String type, final boolean stateless, final Handler handler) {
+        final CompletableFuture<Void> done;
+        CompletableFuture<Void> previous = null;
+        if (dispatchQueue != null) {
+            done = new CompletableFuture<>();
+            previous = dispatchQueue.put(id, done);
+        } else {
+            done = null;
+        }
+        // The timeout only applies to the lookup, so that no lookup starts after its interaction was already answered
+        final Supplier<CompletableFuture<Optional<Component>>> timedLookup = () -> lookup.get().orTimeout(lookupTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        final var ready = previous == null ? timedLookup.get() : previous.thenCompose(ignored -> timedLookup.get());
+
+        final var handled = ready.whenCompleteAsync((result, exception) -> {
+            if (exception != null) {
+                onLookupFailure(event, type, exception instanceof CompletionException ? exception.getCause() : exception);
+                return;
+            }
+            result.ifPresentOrElse(component -> {
+                if (interaction == null || intercept(interaction, component)) {
+                    handle(event, component, type, stateless, handler);
+                }
+            }, () -> replyWithUnknown(event, type));
+        }, dispatchExecutor);
+        if (done != null) {
+            // Also runs if the dispatch executor rejected the interaction, so that the next interactions of the component aren't stuck.
+            // The next interaction waits for this one, so it may only run once the previous one completed as well
+            (previous == null ? handled : CompletableFuture.allOf(handled, previous)).whenComplete((ignored, exception) -> {
+                done.complete(null);
+                dispatchQueue.remove(id, done);
+            });
+        }
+    }
+
+    /**
+     * Runs the interceptors of the manager on an interaction, stopping at the first one which doesn't proceed.
+     *
+     * @param component the component of the interaction, or {@code null} to run the stage before the lookup
+     * @return if the interaction should be dispatched further
+     */
+    private boolean intercept(final ComponentInterceptor.Interaction interaction, @Nullable final Component component) {
+        for (final var interceptor : interceptors) {
+            final ComponentInterceptor.Decision decision;
+            try {
+                decision = component == null ? interceptor.beforeLookup(interaction) : interceptor.afterLookup(interaction, component);
+            } catch (Exception e) {
+                LOGGER.error("Interceptor {} failed to intercept {} interaction with custom ID \"{}\"", interceptor, interaction.type(), interaction.customId().getCustomId(), e);
+                // The interceptor may have acknowledged the interaction before failing
+                if (!interaction.event().isAcknowledged()) {
+                    interaction.event().deferReply(true)
+                            .setContent("Something went wrong while handling this " + interaction.type() + ". Please try again later.")
+                            .queue();
+                }
+                return false;
             }
-        }, () -> replyWithUnknown(event, "modal"));
+            if (decision.type() == ComponentInterceptor.Decision.Type.PROCEED) continue;
+            switch (decision.type()) {
+                case REJECT -> interaction.event().deferReply(true).setContent(Objects.requireNonNull(decision.message())).queue();
+                case DEFER -> {
+                    if (interaction.event() instanceof IMessageEditCallback callback) {
+                        callback.deferEdit().queue();
+                    } else {
+                        interaction.event().deferReply(true).queue();
+                    }
+                }
+                default -> {
+                    // The interceptor acknowledged the interaction itself
+                }
+            }
+            return false;
+        }
+        return true;
     }
 
-    private static List<String> splitItemComponentArguments(String[] args) {
-        return args.length == 1 ? List.of() : Arrays.asList(Arrays.copyOfRange(args, 1, args.length));
+    private void handle(final IReplyCallback event, final Component component, final String type, final boolean stateless, final Handler handler) {
+        final var listener = listeners.get().get(component.featureId());
+        if (listener == null) {
+            event.deferReply(true).setContent("It seems like I can't handle this " + type + " anymore due to its listener being deleted.").queue();
+        } else {
+            // Storage calls made by the listener on this thread share the session
+            final var session = getStorage(component.featureId()).openSession();
+            try {
+                handler.handle(listener, component, stateless);
+            } catch (Exception e) {
+                // Don't commit the changes of a listener which failed half-way through
+                session.rollback();
+                LOGGER.error("Listener for feature \"{}\" failed to handle {} interaction of component {}", component.featureId(), type, component.uuid(), e);
+            } finally {
+                try {
+                    session.close();
+                } catch (Exception e) {
+                    LOGGER.error("Could not close the storage session of {} interaction of component {}", type, component.uuid(), e);
+                }
+            }
+        }
+    }
+
+    private void onLookupFailure(final IReplyCallback event, final String type, final Throwable exception) {
+        if (exception instanceof TimeoutException) {
+            event.deferReply(true)
+                    .setContent("It seems like I am taking too long to handle this " + type + ". Please try again later.")
+                    .queue();
+        } else {
+            LOGGER.error("Could not look up component for {} interaction", type, exception);
+            event.deferReply(true)
+                    .setContent("Something went wrong while handling this " + type + ". Please try again later.")
+                    .queue();
+        }
+    }
+
+    record StorageRoute(String tag, ComponentStorage storage, AsyncComponentStorage asyncStorage, Set<String> featureIds, @Nullable ComponentSweeper sweeper) {}
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(ComponentListener listener, Component component, boolean stateless);
+    }
+
+    /**
+     * Creates an executor which runs each task on a new virtual thread, if the runtime supports them,
+     * or an executor which runs tasks on the calling thread otherwise.
+     */
+    static Executor defaultDispatchExecutor() {
+        if (Runtime.version().feature() >= 21) {
+            try {
+                // The library targets Java 17, so the executor can only be created reflectively
+                return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                LOGGER.warn("Could not create virtual thread executor for dispatching interactions", e);
+            }
+        }
+        return Runnable::run;
+    }
+
+    /**
+     * Gets the executor managers look up components on, unless they are configured with a {@link Builder#storageExecutor(Executor) storage executor}. <br>
+     * This is a bounded pool of daemon threads shared by all the managers, so that blocking storages don't block the threads which receive events.
+     * Once its queue is full, lookups run on the thread which received the event instead.
+     *
+     * @return the default storage executor
+     */
+    @NotNull
+    public static Executor defaultStorageExecutor() {
+        return DefaultStorageExecutor.INSTANCE;
+    }
+
+    private static final class DefaultStorageExecutor {
+        private static final int QUEUE_CAPACITY = 1024;
+        private static final Executor INSTANCE = create();
+
+        private static Executor create() {
+            final int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+            final var counter = new AtomicInteger();
+            final var executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES, new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                final var thread = new Thread(runnable, "ComponentStorage-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+
+    /**
+     * Derives the key of stateless components from the {@link #STATELESS_SECRET_PROPERTY secret system property}, falling back to a random key.
+     */
+    private static byte[] defaultStatelessKey() {
+        final var secret = System.getProperty(STATELESS_SECRET_PROPERTY);
+        if (secret != null && !secret.isBlank()) {
+            return StatelessComponentCodec.deriveKey(secret);
+        }
+        LOGGER.warn("No key was configured for stateless components, so a random one is used, and stateless components will stop working when the bot restarts. " +
+                "Configure one using ComponentManager.Builder#statelessSecret or the {} system property.", STATELESS_SECRET_PROPERTY);
+        final byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return key;
     }
 
     public void replyWithUnknown(IReplyCallback event, String type) {
@@ -143,4 +625,253 @@ public class ComponentManager implements EventListener {
                 .setContent("I am sorry. It seems like I don't know what this " + type + " does anymore. <:sadge:926848859668353055>")
                 .queue();
     }
+
+    /**
+     * Creates a new manager builder.
+     *
+     * @param storage the storage of the manager
+     * @return the builder
+     */
+    public static Builder builder(@NotNull final ComponentStorage storage) {
+        return new Builder(storage);
+    }
+
+    public static final class Builder {
+        private final ComponentStorage storage;
+        @Nullable
+        private AsyncComponentStorage asyncStorage;
+        @Nullable
+        private Executor dispatchExecutor;
+        @Nullable
+        private Executor customDispatchExecutor;
+        private boolean orderedDispatch = true;
+        @Nullable
+        private Executor storageExecutor;
+        private Duration lookupTimeout = DEFAULT_LOOKUP_TIMEOUT;
+        @Nullable
+        private ComponentSweeper.Config sweeperConfig;
+        @Nullable
+        private Consumer<? super ComponentSweeper.Result> onSweep;
+        @Nullable
+        private byte[] statelessKey;
+        private ComponentIdGenerator idGenerator = ComponentIdGenerator.TIME_ORDERED;
+        private final Map<String, RouteConfig> routes = new LinkedHashMap<>();
+        private final List<ComponentInterceptor> interceptors = new ArrayList<>();
+        private final List<ComponentListener> listeners = new ArrayList<>();
+
+        Builder(final ComponentStorage storage) {
+            this.storage = storage;
+        }
+
+        /**
+         * Makes the manager look up components on the given {@code executor}, instead of the {@link #defaultStorageExecutor() default storage executor}. <br>
+         * Listeners will be called on the executor once the lookup completes, unless a {@link #dispatchExecutor(Executor) dispatch executor} is set.
+         * Use {@code Runnable::run} to look up components on the thread that received the event, which is only suitable for storages that don't block.
+         *
+         * @param executor the executor to look up components on
+         * @return the builder instance
+         */
+        public Builder storageExecutor(@NotNull final Executor executor) {
+            this.asyncStorage = AsyncComponentStorage.of(storage, executor);
+            this.dispatchExecutor = executor;
+            this.storageExecutor = executor;
+            return this;
+        }
+
+        /**
+         * Sets the asynchronous storage the manager will use for looking up components. <br>
+         * The storage needs to be backed by the same data as the {@link ComponentManager#getStorage() blocking storage} of the manager.
+         * Listeners will be called on the thread that completes the lookup, unless a {@link #dispatchExecutor(Executor) dispatch executor} is set.
+         *
+         * @param asyncStorage the asynchronous storage
+         * @return the builder instance
+         */
+        public Builder asyncStorage(@NotNull final AsyncComponentStorage asyncStorage) {
+            this.asyncStorage = asyncStorage;
+            this.dispatchExecutor = Runnable::run;
+            this.storageExecutor = Runnable::run;
+            return this;
+        }
+
+        /**
+         * Sets the executor listeners are called on, once the component of an interaction was looked up.
+         * This takes precedence over the executor set by {@link #storageExecutor(Executor)} or {@link #asyncStorage(AsyncComponentStorage)}. <br>
+         * By default, each interaction is dispatched on a new virtual thread on Java 21 and newer, so that a slow listener doesn't block
+         * the thread which received the event. On older versions, listeners are called on the thread that completed the lookup.
+         *
+         * @param executor the executor to call listeners on
+         * @return the builder instance
+         */
+        public Builder dispatchExecutor(@NotNull final Executor executor) {
+            this.customDispatchExecutor = executor;
+            return this;
+        }
+
+        /**
+         * Sets if interactions with the same component should be dispatched one at a time, in the order they were received.
+         * This prevents concurrent clicks on the same component from racing, for example when {@link com.matyrobbrt.jdahelper.components.context.InteractionContext#updateArguments(List) updating}
+         * its arguments. Interactions with different components are still dispatched concurrently. <br>
+         * Defaults to {@code true}.
+         *
+         * @param orderedDispatch if interactions with the same component should be dispatched in order
+         * @return the builder instance
+         */
+        public Builder orderedDispatch(final boolean orderedDispatch) {
+            this.orderedDispatch = orderedDispatch;
+            return this;
+        }
+
+        /**
+         * Sets how long a component lookup may take before the interaction is answered with an error instead.
+         * When dispatches are {@link #orderedDispatch(boolean) ordered}, the time spent waiting for the previous interaction with the component isn't counted. <br>
+         * Defaults to {@link ComponentManager#DEFAULT_LOOKUP_TIMEOUT}.
+         *
+         * @param lookupTimeout the lookup timeout
+         * @return the builder instance
+         */
+        public Builder lookupTimeout(@NotNull final Duration lookupTimeout) {
+            this.lookupTimeout = lookupTimeout;
+            return this;
+        }
+
+        /**
+         * Makes the manager remove {@link Component.Lifespan#TEMPORARY temporary} components that weren't used for a while
+         * in the background, using a {@link ComponentSweeper}. The sweeper is started when the manager is built, and stopped
+         * when it is {@link ComponentManager#shutdown() shut down}.
+         *
+         * @param config  the configuration of the sweeper
+         * @param onSweep an action to run with the result of each sweep, used for reporting
+         * @return the builder instance
+         */
+        public Builder sweepComponents(@NotNull final ComponentSweeper.Config config, @Nullable final Consumer<? super ComponentSweeper.Result> onSweep) {
+            this.sweeperConfig = config;
+            this.onSweep = onSweep;
+            return this;
+        }
+
+        /**
+         * Sets the secret key used for signing the IDs of {@link StatelessComponentCodec stateless} components. <br>
+         * If neither a key nor a {@link #statelessSecret(String) secret} is set, the key is derived from the {@link #STATELESS_SECRET_PROPERTY} system property.
+         * If that isn't set either, a random key is generated, meaning that stateless components stop working when the bot restarts.
+         *
+         * @param key the secret key, which should be at least 32 bytes long
+         * @return the builder instance
+         */
+        public Builder statelessKey(@NotNull final byte[] key) {
+            this.statelessKey = key.clone();
+            return this;
+        }
+
+        /**
+         * Sets the secret the key used for signing the IDs of {@link StatelessComponentCodec stateless} components is {@link StatelessComponentCodec#deriveKey(String) derived} from.
+         * Managers configured with the same secret accept the stateless components of each other, including across restarts.
+         *
+         * @param secret the secret, like a value from the configuration of the bot
+         * @return the builder instance
+         * @see #statelessKey(byte[])
+         */
+        public Builder statelessSecret(@NotNull final String secret) {
+            if (secret.isBlank()) {
+                throw new IllegalArgumentException("Stateless component secret must not be blank");
+            }
+            this.statelessKey = StatelessComponentCodec.deriveKey(secret);
+            return this;
+        }
+
+        /**
+         * Sets the generator of the IDs of new components. Defaults to {@link ComponentIdGenerator#TIME_ORDERED}.
+         *
+         * @param idGenerator the ID generator
+         * @return the builder instance
+         */
+        public Builder idGenerator(@NotNull final ComponentIdGenerator idGenerator) {
+            this.idGenerator = idGenerator;
+            return this;
+        }
+
+        /**
+         * Routes the components of the given features to another storage than the default one of the manager. <br>
+         * This allows features to use a storage which fits them, like an in-memory storage for short-lived confirmation buttons
+         * and a SQL storage for {@link Component.Lifespan#PERMANENT permanent} role menus. <br>
+         * The IDs of the components of routed features are prefixed with the {@code tag} of their storage, followed by the
+         * {@link Component#STORAGE_TAG_SEPARATOR}, which is how lookups find the storage of a component from its ID alone.
+         * Changing the tag of a storage will therefore make its existing components unknown. <br>
+         * Routed storages are looked up on the {@link #storageExecutor(Executor) storage executor}, and swept by
+         * their own sweeper if the manager {@link #sweepComponents(ComponentSweeper.Config, Consumer) sweeps components}.
+         *
+         * @param tag        the tag of the storage, made of at most 8 ASCII letters and digits
+         * @param storage    the storage
+         * @param featureIds the IDs of the features whose components should be stored in the storage
+         * @return the builder instance
+         * @throws IllegalArgumentException if the tag is invalid or already used, or if one of the features is already routed
+         */
+        public Builder routeStorage(@NotNull final String tag, @NotNull final ComponentStorage storage, @NotNull final String... featureIds) {
+            if (!STORAGE_TAG.matcher(tag).matches()) {
+                throw new IllegalArgumentException("Invalid storage tag \"" + tag + "\". Tags must be made of 1 to 8 ASCII letters and digits");
+            }
+            if (routes.containsKey(tag)) {
+                throw new IllegalArgumentException("Storage with tag \"" + tag + "\" exists already!");
+            }
+            for (final var featureId : featureIds) {
+                for (final var route : routes.values()) {
+                    if (route.featureIds().contains(featureId)) {
+                        throw new IllegalArgumentException("Feature \"" + featureId + "\" is already routed to the storage with tag \"" + route.tag() + "\"!");
+                    }
+                }
+            }
+            routes.put(tag, new RouteConfig(tag, storage, Set.of(featureIds)));
+            return this;
+        }
+
+        /**
+         * Adds interceptors to the manager, which run in the order they were added in, before the interactions reach their listeners.
+         *
+         * @param interceptors the interceptors to add
+         * @return the builder instance
+         * @see ComponentInterceptor
+         */
+        public Builder addInterceptors(@NotNull final ComponentInterceptor... interceptors) {
+            this.interceptors.addAll(Arrays.asList(interceptors));
+            return this;
+        }
+
+        /**
+         * Adds listeners to the manager.
+         *
+         * @param listeners the listeners to add
+         * @return the builder instance
+         */
+        public Builder addListeners(@NotNull final ComponentListener... listeners) {
+            this.listeners.addAll(Arrays.asList(listeners));
+            return this;
+        }
+
+        /**
+         * Builds the manager.
+         *
+         * @return the built manager
+         */
+        public ComponentManager build() {
+            final var storageExecutor = this.storageExecutor == null ? defaultStorageExecutor() : this.storageExecutor;
+            return new ComponentManager(
+                    storage, asyncStorage == null ? AsyncComponentStorage.of(storage, storageExecutor) : asyncStorage,
+                    customDispatchExecutor != null ? customDispatchExecutor : dispatchExecutor != null ? dispatchExecutor : defaultDispatchExecutor(),
+                    lookupTimeout,
+                    sweeperConfig == null ? null : new ComponentSweeper(storage, sweeperConfig, onSweep),
+                    statelessKey == null ? defaultStatelessKey() : statelessKey,
+                    idGenerator,
+                    routes.values().stream()
+                            .map(route -> new StorageRoute(
+                                    route.tag(), route.storage(), AsyncComponentStorage.of(route.storage(), storageExecutor), route.featureIds(),
+                                    sweeperConfig == null ? null : new ComponentSweeper(route.storage(), sweeperConfig, onSweep)
+                            ))
+                            .toList(),
+                    orderedDispatch,
+                    interceptors,
+                    listeners
+            );
+        }
+
+        private record RouteConfig(String tag, ComponentStorage storage, Set<String> featureIds) {}
+    }
 }
@@ -0,0 +1,165 @@
+package com.matyrobbrt.jdahelper.components;
+
+import com.matyrobbrt.jdahelper.components.storage.ComponentStorage;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A sweeper which periodically removes {@link Component.Lifespan#TEMPORARY temporary} components that weren't used for a while,
+ * on its own thread. <br>
+ * Components are removed in bounded {@link Config#chunkSize() chunks}, with a {@link Config#chunkPause() pause} between chunks, so
+ * that expiry doesn't hold locks on the storage that interaction lookups are waiting for.
+ *
+ * @see ComponentManager.Builder#sweepComponents(Config, Consumer)
+ */
+public final class ComponentSweeper {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ComponentSweeper.class);
+
+    private final ComponentStorage storage;
+    private final Config config;
+    @Nullable
+    private final Consumer<? super Result> onSweep;
+    private final AtomicLong totalRemoved = new AtomicLong();
+    @Nullable
+    private volatile Result lastResult;
+    @Nullable
+    private ScheduledExecutorService scheduler;
+
+    ComponentSweeper(final ComponentStorage storage, final Config config, @Nullable final Consumer<? super Result> onSweep) {
+        this.storage = storage;
+        this.config = config;
+        this.onSweep = onSweep;
+    }
+
+    synchronized void start() {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            final var thread = new Thread(r, "ComponentSweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long interval = config.interval().toMillis();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                sweep();
+            } catch (Exception exception) {
+                LOGGER.error("Failed to sweep expired components", exception);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Removes all the components which weren't used in the last {@link Config#maxAge() max age}, in chunks. <br>
+     * This method blocks until all the chunks were removed, and is usually called by the sweeper's own thread.
+     *
+     * @return the result of the sweep
+     */
+    @NotNull
+    public Result sweep() {
+        final var start = Instant.now();
+        final var before = start.minus(config.maxAge());
+        long removed = 0;
+        int chunks = 0;
+        while (true) {
+            final int chunk = storage.removeComponentsLastUsedBefore(before, config.chunkSize());
+            chunks++;
+            if (chunk > 0) {
+                removed += chunk;
+            }
+            if (chunk < config.chunkSize() || Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            try {
+                Thread.sleep(config.chunkPause().toMillis());
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        final var result = new Result(before, removed, chunks, Duration.between(start, Instant.now()));
+        totalRemoved.addAndGet(removed);
+        lastResult = result;
+        if (onSweep != null) {
+            onSweep.accept(result);
+        }
+        return result;
+    }
+
+    /**
+     * @return the total amount of components removed by this sweeper
+     */
+    public long getTotalRemoved() {
+        return totalRemoved.get();
+    }
+
+    /**
+     * @return the result of the last sweep, or {@code null} if no sweep was done yet
+     */
+    @Nullable
+    public Result getLastResult() {
+        return lastResult;
+    }
+
+    /**
+     * @return the configuration of the sweeper
+     */
+    @NotNull
+    public Config getConfig() {
+        return config;
+    }
+
+    /**
+     * The configuration of a {@link ComponentSweeper}.
+     *
+     * @param interval   the time between the end of a sweep and the start of the next one
+     * @param maxAge     how long a component may stay unused before being removed
+     * @param chunkSize  the maximum amount of components removed at once
+     * @param chunkPause the time to wait between removing two chunks
+     */
+    public record Config(Duration interval, Duration maxAge, int chunkSize, Duration chunkPause) {
+        public Config {
+            if (chunkSize < 1) {
+                throw new IllegalArgumentException("The chunk size must be positive!");
+            }
+        }
+
+        /**
+         * Creates a configuration which sweeps every 10 minutes, removing 500 components at once with a 100 milliseconds pause.
+         *
+         * @param maxAge how long a component may stay unused before being removed
+         * @return the configuration
+         */
+        public static Config of(final Duration maxAge) {
+            return new Config(Duration.ofMinutes(10), maxAge, 500, Duration.ofMillis(100));
+        }
+    }
+
+    /**
+     * The result of a sweep.
+     *
+     * @param before   the moment before which components had to be last used in order to be removed
+     * @param removed  the amount of removed components. This may be lower than the actual amount if the storage cannot count removed components
+     * @param chunks   the amount of chunks the components were removed in
+     * @param duration how long the sweep took
+     */
+    public record Result(Instant before, long removed, int chunks, Duration duration) {
+    }
+}
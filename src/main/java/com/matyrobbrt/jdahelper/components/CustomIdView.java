@@ -0,0 +1,327 @@
+package com.matyrobbrt.jdahelper.components;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A view of a parsed custom ID of an item component or modal, as created by a {@link ComponentListener}. <br>
+ * The ID is parsed in a single pass, without regular expressions or intermediate strings: the component UUID is decoded straight
+ * into its bits, and the arguments following it are only sliced out of the custom ID when they are first accessed. <br>
+ * Parsing never throws. IDs which are in none of the known formats produce an {@link #isValid() invalid} view instead.
+ * <p>
+ * The accepted formats are:
+ * <ul>
+ *     <li>the {@link Component#toCompactId(UUID) compact} format, which starts with the {@link Component#COMPACT_ID_PREFIX}, optionally prefixed with a {@link Component#STORAGE_TAG_SEPARATOR storage tag},
+ *     with the arguments split using the {@link Component#COMPACT_ID_SPLITTER}</li>
+ *     <li>the legacy format, which uses the {@link UUID#toString() UUID string} with the arguments split using the {@link Component#ID_SPLITTER}</li>
+ *     <li>the format of {@link StatelessComponentCodec stateless} components, whose UUID is not part of the ID</li>
+ * </ul>
+ *
+ * @see Component#splitId(String)
+ */
+@ParametersAreNonnullByDefault
+public final class CustomIdView {
+    private static final int LEGACY_ID_LENGTH = 36;
+    private static final byte[] HEX_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            HEX_VALUES['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            HEX_VALUES['a' + i] = (byte) (10 + i);
+            HEX_VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    private final String customId;
+    private final boolean valid;
+    private final boolean stateless;
+    private final int tagEnd;
+    private final int idEnd;
+    private final boolean legacy;
+    private long msb;
+    private long lsb;
+    @Nullable
+    private volatile int[] argumentBounds;
+
+    private CustomIdView(final String customId) {
+        this.customId = customId;
+
+        // Neither the base64 nor the UUID form of an ID contains a '/' or the compact splitter, so the first one found is the splitter
+        int end = customId.length();
+        boolean legacy = false;
+        int tagEnd = -1;
+        for (int i = 0; i < customId.length(); i++) {
+            final char c = customId.charAt(i);
+            if (c == Component.COMPACT_ID_SPLITTER) {
+                end = i;
+                break;
+            } else if (c == '/') {
+                legacy = true;
+                final int splitter = customId.indexOf(Component.ID_SPLITTER, i);
+                end = splitter == -1 ? customId.length() : splitter;
+                break;
+            } else if (c == Component.STORAGE_TAG_SEPARATOR && tagEnd == -1) {
+                tagEnd = i;
+            }
+        }
+        this.idEnd = end;
+        this.legacy = legacy;
+        this.stateless = StatelessComponentCodec.isStateless(customId);
+        this.tagEnd = stateless ? -1 : tagEnd;
+
+        if (stateless) {
+            this.valid = end > 1;
+        } else {
+            final int start = this.tagEnd + 1;
+            final int length = end - start;
+            if (length == Component.COMPACT_ID_LENGTH && customId.charAt(start) == Component.COMPACT_ID_PREFIX) {
+                this.valid = decodeCompact(start + 1);
+            } else if (length == LEGACY_ID_LENGTH && this.tagEnd == -1) {
+                this.valid = decodeLegacy(start);
+            } else {
+                this.valid = false;
+            }
+        }
+    }
+
+    /**
+     * Parses a custom ID.
+     *
+     * @param customId the custom ID to parse
+     * @return the view of the parsed ID, which is {@link #isValid() invalid} if the ID is in none of the known formats
+     */
+    @NotNull
+    public static CustomIdView parse(final String customId) {
+        return new CustomIdView(customId);
+    }
+
+    /**
+     * @return if the ID is in one of the known formats
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * @return if the ID is the ID of a {@link StatelessComponentCodec stateless} component, whose arguments are encoded in the {@link #getComponentId() component ID}
+     */
+    public boolean isStateless() {
+        return stateless;
+    }
+
+    /**
+     * @return the parsed custom ID
+     */
+    @NotNull
+    public String getCustomId() {
+        return customId;
+    }
+
+    /**
+     * @return the tag of the storage the component is {@link ComponentManager.Builder#routeStorage(String, com.matyrobbrt.jdahelper.components.storage.ComponentStorage, String...) routed} to,
+     * or {@code null} if the ID has no tag
+     */
+    @Nullable
+    public String getStorageTag() {
+        return tagEnd == -1 ? null : customId.substring(0, tagEnd);
+    }
+
+    /**
+     * Gets the part of the custom ID which identifies the component, without its storage tag and arguments. <br>
+     * For stateless components, this is the part decoded by the {@link StatelessComponentCodec}.
+     *
+     * @return the component ID
+     */
+    @NotNull
+    public String getComponentId() {
+        return customId.substring(tagEnd + 1, idEnd);
+    }
+
+    /**
+     * @return the most significant bits of the component UUID
+     * @throws IllegalStateException if the ID is invalid or stateless
+     */
+    public long getMostSignificantBits() {
+        checkUuid();
+        return msb;
+    }
+
+    /**
+     * @return the least significant bits of the component UUID
+     * @throws IllegalStateException if the ID is invalid or stateless
+     */
+    public long getLeastSignificantBits() {
+        checkUuid();
+        return lsb;
+    }
+
+    /**
+     * @return the component UUID
+     * @throws IllegalStateException if the ID is invalid or stateless
+     */
+    @NotNull
+    public UUID getUuid() {
+        checkUuid();
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * @return the amount of arguments following the component ID
+     */
+    public int getArgumentCount() {
+        return argumentBounds().length / 2;
+    }
+
+    /**
+     * Gets an argument following the component ID.
+     *
+     * @param index the index of the argument
+     * @return the argument
+     * @throws IndexOutOfBoundsException if there is no argument at the {@code index}
+     */
+    @NotNull
+    public String getArgument(final int index) {
+        final int[] bounds = argumentBounds();
+        if (index < 0 || index * 2 >= bounds.length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + bounds.length / 2 + " arguments");
+        }
+        return customId.substring(bounds[index * 2], bounds[index * 2 + 1]);
+    }
+
+    /**
+     * Gets a view of the arguments following the component ID. Each argument is only sliced out of the custom ID when it is accessed.
+     *
+     * @return the arguments
+     */
+    @NotNull
+    public List<String> getArguments() {
+        if (idEnd == customId.length()) {
+            return List.of();
+        }
+        return new AbstractList<>() {
+            @Override
+            public String get(final int index) {
+                return getArgument(index);
+            }
+
+            @Override
+            public int size() {
+                return getArgumentCount();
+            }
+        };
+    }
+
+    private void checkUuid() {
+        if (!valid || stateless) {
+            throw new IllegalStateException("Custom ID '" + customId + "' has no component UUID");
+        }
+    }
+
+    /**
+     * Computes the start and end of each argument, splitting the same way {@link Component#splitId(String)} does.
+     */
+    private int[] argumentBounds() {
+        final int[] computed = argumentBounds;
+        if (computed != null) {
+            return computed;
+        }
+        final int splitterLength = legacy ? Component.ID_SPLITTER.length() : 1;
+        int count = 0;
+        for (int start = idEnd; start < customId.length(); start = nextSplitter(start + splitterLength)) {
+            count++;
+        }
+        int[] bounds = new int[count * 2];
+        int i = 0;
+        for (int start = idEnd; start < customId.length(); ) {
+            final int end = nextSplitter(start + splitterLength);
+            bounds[i++] = start + splitterLength;
+            bounds[i++] = end;
+            start = end;
+        }
+        if (legacy) {
+            // String#split drops trailing empty strings
+            int length = bounds.length;
+            while (length > 0 && bounds[length - 2] == bounds[length - 1]) {
+                length -= 2;
+            }
+            if (length != bounds.length) {
+                bounds = Arrays.copyOf(bounds, length);
+            }
+        }
+        return argumentBounds = bounds;
+    }
+
+    private int nextSplitter(final int from) {
+        if (legacy) {
+            final int index = customId.indexOf(Component.ID_SPLITTER, from);
+            return index == -1 ? customId.length() : index;
+        }
+        final int index = customId.indexOf(Component.COMPACT_ID_SPLITTER, from);
+        return index == -1 ? customId.length() : index;
+    }
+
+    private boolean decodeCompact(final int start) {
+        long msb = 0;
+        for (int i = 0; i < 10; i++) {
+            final int value = base64Value(start + i);
+            if (value < 0) return false;
+            msb = msb << 6 | value;
+        }
+        final int middle = base64Value(start + 10);
+        if (middle < 0) return false;
+        msb = msb << 4 | middle >>> 2;
+        long lsb = middle & 0x3;
+        for (int i = 11; i < 21; i++) {
+            final int value = base64Value(start + i);
+            if (value < 0) return false;
+            lsb = lsb << 6 | value;
+        }
+        final int last = base64Value(start + 21);
+        if (last < 0 || (last & 0xF) != 0) return false;
+        this.msb = msb;
+        this.lsb = lsb << 2 | last >>> 4;
+        return true;
+    }
+
+    private boolean decodeLegacy(final int start) {
+        long msb = 0;
+        long lsb = 0;
+        int digits = 0;
+        for (int i = 0; i < LEGACY_ID_LENGTH; i++) {
+            final char c = customId.charAt(start + i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') return false;
+                continue;
+            }
+            final int value = c < 128 ? HEX_VALUES[c] : -1;
+            if (value < 0) return false;
+            if (digits++ < 16) {
+                msb = msb << 4 | value;
+            } else {
+                lsb = lsb << 4 | value;
+            }
+        }
+        this.msb = msb;
+        this.lsb = lsb;
+        return true;
+    }
+
+    private int base64Value(final int index) {
+        final char c = customId.charAt(index);
+        return c < 128 ? Component.BASE64_VALUES[c] : -1;
+    }
+
+    @Override
+    public String toString() {
+        return "CustomIdView[" + customId + "]";
+    }
+}
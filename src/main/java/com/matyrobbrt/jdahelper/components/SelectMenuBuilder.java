@@ -5,7 +5,6 @@ import org.jetbrains.annotations.NotNull;
 
 import java.util.Arrays;
 import java.util.List;
-import java.util.UUID;
 
 public record SelectMenuBuilder<T extends SelectMenu, B extends SelectMenu.Builder<T, B>>(ComponentListener listener, Creator<T, B> creator) {
 
@@ -30,9 +29,9 @@ public record SelectMenuBuilder<T extends SelectMenu, B extends SelectMenu.Build
      */
     @NotNull
     public B createMenu(@NotNull Component.Lifespan lifespan, final List<String> args) {
-        final var comp = new Component(listener.getName(), UUID.randomUUID(), args, lifespan);
+        final var comp = new Component(listener.getName(), listener.generateId(), args, lifespan);
         listener.insertComponent(comp);
-        return creator.create(comp.uuid().toString());
+        return creator.create(listener.createId(comp.uuid()));
     }
 
     /**
@@ -45,9 +44,24 @@ public record SelectMenuBuilder<T extends SelectMenu, B extends SelectMenu.Build
      */
     @NotNull
     public B createMenu(@NotNull Component.Lifespan lifespan, final List<String> args, final Object... idArguments) {
-        final var comp = new Component(listener.getName(), UUID.randomUUID(), args, lifespan);
+        final var comp = new Component(listener.getName(), listener.generateId(), args, lifespan);
         listener.insertComponent(comp);
-        return creator.create(Component.createIdWithArguments(comp.uuid(), idArguments));
+        return creator.create(listener.createId(comp.uuid(), idArguments));
+    }
+
+    /**
+     * Creates a select menu builder whose arguments are encoded in its ID, if they fit, and the specified menu ID arguments. <br>
+     * Otherwise, a component with a random ID is stored, like for {@link #createMenu(Component.Lifespan, List, Object...)}.
+     *
+     * @param lifespan    the lifespan of the component, if it needs to be stored
+     * @param args        the component's arguments
+     * @param idArguments the menu's ID arguments
+     * @return the select menu builder
+     * @see ComponentListener#createStatelessId(Component.Lifespan, List, Object...)
+     */
+    @NotNull
+    public B createStatelessMenu(@NotNull Component.Lifespan lifespan, final List<String> args, final Object... idArguments) {
+        return creator.create(listener.createStatelessId(lifespan, args, idArguments));
     }
 
     public interface Creator<T extends SelectMenu, B extends SelectMenu.Builder<T, B>> {
@@ -0,0 +1,146 @@
+package com.matyrobbrt.jdahelper.components;
+
+import com.matyrobbrt.jdahelper.components.storage.ArgumentCodec;
+import net.dv8tion.jda.api.interactions.components.buttons.Button;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A codec which packs the feature ID and arguments of stateless components into their custom ID, so that they don't need to be stored. <br>
+ * A stateless ID consists of the {@link #PREFIX}, followed by the URL-safe base64 encoding of the {@link ArgumentCodec#BINARY binary encoded}
+ * feature ID and arguments, and of a truncated HMAC-SHA256 tag of those. The tag prevents users from forging or tampering with
+ * the arguments of stateless components.
+ */
+@ParametersAreNonnullByDefault
+public final class StatelessComponentCodec {
+
+    /**
+     * The prefix of stateless component IDs. This character can never start a {@link UUID}.
+     */
+    public static final String PREFIX = "~";
+
+    /**
+     * The maximum length of the custom ID of a component.
+     */
+    public static final int MAX_ID_LENGTH = Button.ID_MAX_LENGTH;
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int TAG_LENGTH = 6;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final ThreadLocal<Mac> mac;
+
+    StatelessComponentCodec(final byte[] key) {
+        final var keySpec = new SecretKeySpec(key, ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                final var mac = Mac.getInstance(ALGORITHM);
+                mac.init(keySpec);
+                return mac;
+            } catch (GeneralSecurityException exception) {
+                throw new IllegalStateException("Could not create " + ALGORITHM + " instance", exception);
+            }
+        });
+    }
+
+    /**
+     * Encodes a stateless component ID.
+     *
+     * @param featureId   the ID of the feature of the component
+     * @param arguments   the arguments of the component
+     * @param idArguments other arguments, which are split from the encoded component using the {@link Component#COMPACT_ID_SPLITTER}
+     * @return the encoded ID, or {@code null} if it would exceed the {@link #MAX_ID_LENGTH maximum ID length}
+     */
+    @Nullable
+    public String encode(final String featureId, final List<String> arguments, final Object... idArguments) {
+        final var values = new ArrayList<String>(arguments.size() + 1);
+        values.add(featureId);
+        values.addAll(arguments);
+        final byte[] payload = ArgumentCodec.BINARY.encode(values);
+        // Base64 without padding uses 4 characters per 3 bytes
+        if (PREFIX.length() + ((payload.length + TAG_LENGTH) * 4 + 2) / 3 > MAX_ID_LENGTH) {
+            return null;
+        }
+
+        final byte[] data = Arrays.copyOf(payload, payload.length + TAG_LENGTH);
+        System.arraycopy(mac.get().doFinal(payload), 0, data, payload.length, TAG_LENGTH);
+        final var id = Component.createCompactIdWithArguments(PREFIX + ENCODER.encodeToString(data), idArguments);
+        return id.length() > MAX_ID_LENGTH ? null : id;
+    }
+
+    /**
+     * Decodes a stateless component ID. <br>
+     * The {@link Component#uuid() UUID} of the decoded component is derived from its contents, so stateless components with the same
+     * feature and arguments have the same UUID.
+     *
+     * @param id the stateless ID, without any ID arguments
+     * @return the decoded component, or {@code null} if the ID is malformed or its tag is invalid
+     */
+    @Nullable
+    public Component decode(final String id) {
+        if (!isStateless(id)) return null;
+        final byte[] data;
+        try {
+            data = DECODER.decode(id.substring(PREFIX.length()));
+        } catch (IllegalArgumentException exception) {
+            return null;
+        }
+        if (data.length <= TAG_LENGTH) return null;
+
+        final byte[] payload = Arrays.copyOf(data, data.length - TAG_LENGTH);
+        final byte[] expectedTag = mac.get().doFinal(payload);
+        if (!MessageDigest.isEqual(Arrays.copyOf(expectedTag, TAG_LENGTH), Arrays.copyOfRange(data, payload.length, data.length))) {
+            return null;
+        }
+
+        final List<String> values;
+        try {
+            values = ArgumentCodec.BINARY.decode(payload);
+        } catch (IllegalArgumentException exception) {
+            return null;
+        }
+        if (values.isEmpty()) return null;
+        final var uuidBits = ByteBuffer.wrap(expectedTag, TAG_LENGTH, 16);
+        return new Component(values.get(0), new UUID(uuidBits.getLong(), uuidBits.getLong()), values.subList(1, values.size()), Component.Lifespan.TEMPORARY);
+    }
+
+    /**
+     * Derives a signing key from a secret, like a value from the configuration of the bot. <br>
+     * The same secret always derives the same key, so that stateless components keep working across restarts.
+     *
+     * @param secret the secret
+     * @return the derived key
+     */
+    public static byte[] deriveKey(final String secret) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(("jdahelper-stateless-components:" + secret).getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException exception) {
+            throw new IllegalStateException("Could not create SHA-256 instance", exception);
+        }
+    }
+
+    /**
+     * Checks if the given ID has the format of a stateless component ID. <br>
+     * This only checks the prefix of the ID, so other IDs starting with it are stateless as well. Only {@link #decode(String) decoding}
+     * the ID verifies that it was created by a codec with the same key.
+     *
+     * @param id the ID to check
+     * @return if the ID has the stateless format
+     */
+    public static boolean isStateless(final String id) {
+        return id.startsWith(PREFIX);
+    }
+}
@@ -1,6 +1,7 @@
 package com.matyrobbrt.jdahelper.components.context;
 
 import com.matyrobbrt.jdahelper.components.ComponentManager;
+import com.matyrobbrt.jdahelper.components.storage.ComponentStorage;
 import net.dv8tion.jda.api.interactions.components.buttons.Button;
 import net.dv8tion.jda.api.interactions.components.buttons.ButtonInteraction;
 
@@ -26,6 +27,14 @@ public interface ButtonInteractionContext extends ItemComponentInteractionContex
         public Impl(ButtonInteraction event, ComponentManager manager, UUID componentId, List<String> arguments, List<String> itemComponentArgs) {
             super(event, manager, componentId, arguments, itemComponentArgs);
         }
+
+        public Impl(ButtonInteraction event, ComponentManager manager, UUID componentId, List<String> arguments, List<String> itemComponentArgs, boolean stateless) {
+            super(event, manager, componentId, arguments, itemComponentArgs, stateless);
+        }
+
+        public Impl(ButtonInteraction event, ComponentManager manager, UUID componentId, List<String> arguments, List<String> itemComponentArgs, boolean stateless, ComponentStorage storage) {
+            super(event, manager, componentId, arguments, itemComponentArgs, stateless, storage);
+        }
     }
 
 }
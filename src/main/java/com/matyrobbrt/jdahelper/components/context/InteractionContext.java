@@ -1,6 +1,7 @@
 package com.matyrobbrt.jdahelper.components.context;
 
 import com.matyrobbrt.jdahelper.components.ComponentManager;
+import com.matyrobbrt.jdahelper.components.storage.ComponentStorage;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.User;
@@ -70,6 +71,17 @@ public interface InteractionContext<T extends Interaction> {
     @NotNull
     ComponentManager getManager();
 
+    /**
+     * Gets the storage of the {@link com.matyrobbrt.jdahelper.components.Component component} which triggered this interaction,
+     * which is the storage its feature is {@link ComponentManager#getStorage(String) routed} to.
+     *
+     * @return the storage of the component
+     */
+    @NotNull
+    default ComponentStorage getStorage() {
+        return getManager().getStorage();
+    }
+
     /**
      * Gets the arguments from the database.
      *
@@ -121,14 +133,30 @@ public interface InteractionContext<T extends Interaction> {
     @NotNull
     UUID getComponentId();
 
+    /**
+     * Checks if the {@link com.matyrobbrt.jdahelper.components.Component component} which triggered this interaction is stateless,
+     * meaning that its arguments are encoded in its custom ID instead of being stored. <br>
+     * The {@link #getComponentId() ID} of stateless components is derived from their contents.
+     *
+     * @return if the component is stateless
+     * @see com.matyrobbrt.jdahelper.components.ComponentListener#createStatelessId(com.matyrobbrt.jdahelper.components.Component.Lifespan, List, Object...)
+     */
+    default boolean isStateless() {
+        return false;
+    }
+
     /**
      * Updates the arguments of the {@link com.matyrobbrt.jdahelper.components.Component component} which is linked
      * triggered this interaction.
      *
      * @param newArguments the new arguments
+     * @throws IllegalStateException if the component is {@link #isStateless() stateless}. Stateless components need to be re-created with the new arguments instead
      */
     default void updateArguments(@NotNull final List<String> newArguments) {
-        getManager().getStorage().updateArguments(getComponentId(), newArguments);
+        if (isStateless()) {
+            throw new IllegalStateException("Cannot update the arguments of stateless component " + getComponentId());
+        }
+        getStorage().updateArguments(getComponentId(), newArguments);
     }
 
     /**
@@ -145,10 +173,13 @@ public interface InteractionContext<T extends Interaction> {
 
     /**
      * Deletes the {@link #getComponentId() component} and all its associated
-     * data from the database.
+     * data from the database. <br>
+     * This does nothing for {@link #isStateless() stateless} components, as they are not stored.
      */
     default void deleteComponent() {
-        getManager().getStorage().removeComponent(getComponentId());
+        if (!isStateless()) {
+            getStorage().removeComponent(getComponentId());
+        }
     }
 
     @SuppressWarnings("ClassCanBeRecord")
@@ -157,12 +188,24 @@ public interface InteractionContext<T extends Interaction> {
         private final ComponentManager manager;
         private final UUID componentId;
         private final List<String> arguments;
+        private final boolean stateless;
+        private final ComponentStorage storage;
 
         public Impl(T event, ComponentManager manager, UUID componentId, List<String> arguments) {
+            this(event, manager, componentId, arguments, false);
+        }
+
+        public Impl(T event, ComponentManager manager, UUID componentId, List<String> arguments, boolean stateless) {
+            this(event, manager, componentId, arguments, stateless, manager.getStorage());
+        }
+
+        public Impl(T event, ComponentManager manager, UUID componentId, List<String> arguments, boolean stateless, ComponentStorage storage) {
             this.event = event;
             this.manager = manager;
+            this.storage = storage;
             this.componentId = componentId;
             this.arguments = arguments;
+            this.stateless = stateless;
         }
 
         @Override
@@ -175,6 +218,11 @@ public interface InteractionContext<T extends Interaction> {
             return manager;
         }
 
+        @Override
+        public @NotNull ComponentStorage getStorage() {
+            return storage;
+        }
+
         @Override
         public @NotNull List<String> getArguments() {
             return arguments;
@@ -184,5 +232,10 @@ public interface InteractionContext<T extends Interaction> {
         public @NotNull UUID getComponentId() {
             return componentId;
         }
+
+        @Override
+        public boolean isStateless() {
+            return stateless;
+        }
     }
 }
@@ -1,6 +1,7 @@
 package com.matyrobbrt.jdahelper.components.context;
 
 import com.matyrobbrt.jdahelper.components.ComponentManager;
+import com.matyrobbrt.jdahelper.components.storage.ComponentStorage;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
@@ -27,7 +28,7 @@ public interface ItemComponentInteractionContext<T extends IReplyCallback> exten
 
     /**
      * Gets the arguments from the {@link net.dv8tion.jda.api.interactions.components.ItemComponent item components}'s id. Those arguments are split from the component id
-     * using the {@link com.matyrobbrt.jdahelper.components.Component#ID_SPLITTER}.
+     * using the {@link com.matyrobbrt.jdahelper.components.Component#COMPACT_ID_SPLITTER}, or the {@link com.matyrobbrt.jdahelper.components.Component#ID_SPLITTER} for legacy IDs.
      *
      * @return the arguments from the item component id.
      */
@@ -72,7 +73,16 @@ public interface ItemComponentInteractionContext<T extends IReplyCallback> exten
         private final List<String> itemComponentArgs;
 
         public Impl(T event, ComponentManager manager, UUID componentId, List<String> arguments, List<String> itemComponentArgs) {
-            super(event, manager, componentId, arguments);
+            this(event, manager, componentId, arguments, itemComponentArgs, false);
+        }
+
+        public Impl(T event, ComponentManager manager, UUID componentId, List<String> arguments, List<String> itemComponentArgs, boolean stateless) {
+            super(event, manager, componentId, arguments, stateless);
+            this.itemComponentArgs = itemComponentArgs;
+        }
+
+        public Impl(T event, ComponentManager manager, UUID componentId, List<String> arguments, List<String> itemComponentArgs, boolean stateless, ComponentStorage storage) {
+            super(event, manager, componentId, arguments, stateless, storage);
             this.itemComponentArgs = itemComponentArgs;
         }
 
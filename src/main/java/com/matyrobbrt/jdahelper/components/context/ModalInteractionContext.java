@@ -1,6 +1,7 @@
 package com.matyrobbrt.jdahelper.components.context;
 
 import com.matyrobbrt.jdahelper.components.ComponentManager;
+import com.matyrobbrt.jdahelper.components.storage.ComponentStorage;
 import net.dv8tion.jda.api.interactions.modals.ModalInteraction;
 import net.dv8tion.jda.api.interactions.modals.ModalMapping;
 
@@ -33,6 +34,14 @@ public interface ModalInteractionContext extends ItemComponentInteractionContext
         public Impl(ModalInteraction event, ComponentManager manager, UUID componentId, List<String> arguments, List<String> itemComponentArgs) {
             super(event, manager, componentId, arguments, itemComponentArgs);
         }
+
+        public Impl(ModalInteraction event, ComponentManager manager, UUID componentId, List<String> arguments, List<String> itemComponentArgs, boolean stateless) {
+            super(event, manager, componentId, arguments, itemComponentArgs, stateless);
+        }
+
+        public Impl(ModalInteraction event, ComponentManager manager, UUID componentId, List<String> arguments, List<String> itemComponentArgs, boolean stateless, ComponentStorage storage) {
+            super(event, manager, componentId, arguments, itemComponentArgs, stateless, storage);
+        }
     }
 
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.matyrobbrt.jdahelper.components.context;
 
 import com.matyrobbrt.jdahelper.components.ComponentManager;
+import com.matyrobbrt.jdahelper.components.storage.ComponentStorage;
 import net.dv8tion.jda.api.interactions.components.selections.SelectMenu;
 import net.dv8tion.jda.api.interactions.components.selections.SelectMenuInteraction;
 
@@ -17,6 +18,14 @@ public interface SelectMenuInteractionContext<A, S extends SelectMenu, T extends
         public Impl(T event, ComponentManager manager, UUID componentId, List<String> arguments, List<String> itemComponentArgs) {
             super(event, manager, componentId, arguments, itemComponentArgs);
         }
+
+        public Impl(T event, ComponentManager manager, UUID componentId, List<String> arguments, List<String> itemComponentArgs, boolean stateless) {
+            super(event, manager, componentId, arguments, itemComponentArgs, stateless);
+        }
+
+        public Impl(T event, ComponentManager manager, UUID componentId, List<String> arguments, List<String> itemComponentArgs, boolean stateless, ComponentStorage storage) {
+            super(event, manager, componentId, arguments, itemComponentArgs, stateless, storage);
+        }
     }
 
 }
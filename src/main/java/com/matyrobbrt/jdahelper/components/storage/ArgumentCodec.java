@@ -0,0 +1,45 @@
+package com.matyrobbrt.jdahelper.components.storage;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.List;
+
+/**
+ * A codec used by storages for serializing the {@link com.matyrobbrt.jdahelper.components.Component#arguments() arguments of components}.
+ */
+@ParametersAreNonnullByDefault
+public interface ArgumentCodec {
+
+    /**
+     * A codec which serializes arguments as a UTF-8 encoded JSON array. This is the format legacy storages use.
+     */
+    ArgumentCodec JSON = new JsonArgumentCodec();
+
+    /**
+     * A codec which serializes arguments in a compact, length-prefixed binary format. <br>
+     * This codec can also decode arguments serialized by the {@link #JSON} codec.
+     *
+     * @see BinaryArgumentCodec
+     */
+    ArgumentCodec BINARY = new BinaryArgumentCodec();
+
+    /**
+     * Serializes the arguments.
+     *
+     * @param arguments the arguments to serialize
+     * @return the serialized arguments
+     */
+    @NotNull
+    byte[] encode(final List<String> arguments);
+
+    /**
+     * Deserializes arguments.
+     *
+     * @param data the serialized arguments
+     * @return the deserialized arguments
+     * @throws IllegalArgumentException if the data is malformed
+     */
+    @NotNull
+    List<String> decode(final byte[] data);
+}
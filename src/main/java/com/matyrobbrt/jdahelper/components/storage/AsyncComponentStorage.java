@@ -0,0 +1,119 @@
+package com.matyrobbrt.jdahelper.components.storage;
+
+import com.matyrobbrt.jdahelper.components.Component;
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * An asynchronous variant of {@link ComponentStorage}, whose operations don't block the calling thread. <br>
+ * Blocking storages can be adapted using {@link #of(ComponentStorage, Executor)}.
+ */
+@ParametersAreNonnullByDefault
+public interface AsyncComponentStorage {
+
+    /**
+     * Inserts a component into the database.
+     *
+     * @param component the component to insert
+     * @return a future completed once the component was inserted
+     */
+    @NotNull
+    CompletableFuture<Void> insertComponent(final Component component);
+
+    /**
+     * Inserts multiple components into the database.
+     *
+     * @param components the components to insert
+     * @return a future completed once all the components were inserted
+     * @see ComponentStorage#insertComponents(Collection)
+     */
+    @NotNull
+    default CompletableFuture<Void> insertComponents(final Collection<Component> components) {
+        return CompletableFuture.allOf(components.stream()
+                .map(this::insertComponent)
+                .toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Removes a component from the database.
+     *
+     * @param id the ID of the component to remove
+     * @return a future completed once the component was removed
+     */
+    @NotNull
+    CompletableFuture<Void> removeComponent(final UUID id);
+
+    /**
+     * Removes all the components which were last used before the given {@link Instant}.
+     *
+     * @param before the last moment when components could have been used in order to "survive" this operation
+     * @return a future completed once the components were removed
+     * @see ComponentStorage#removeComponentsLastUsedBefore(Instant)
+     */
+    @NotNull
+    CompletableFuture<Void> removeComponentsLastUsedBefore(final Instant before);
+
+    /**
+     * Removes all the components of a feature, regardless of their lifespan.
+     *
+     * @param featureId the feature ID of the components to remove
+     * @return a future completed with the amount of removed components, or {@code -1} if the storage cannot tell,
+     * once the components were removed
+     * @see ComponentStorage#removeComponentsByFeature(String)
+     */
+    @NotNull
+    default CompletableFuture<Integer> removeComponentsByFeature(final String featureId) {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException(getClass().getSimpleName() + " cannot remove components by their feature"));
+    }
+
+    /**
+     * Gets a component from the database.
+     *
+     * @param id the ID of the component to get
+     * @return a future completed with an optional containing the component if it exists,
+     * otherwise with an {@link Optional#empty() empty optional}
+     */
+    @NotNull
+    CompletableFuture<Optional<Component>> getComponent(final UUID id);
+
+    /**
+     * Updates the arguments for a given component.
+     *
+     * @param id           the ID of the component whose arguments to update
+     * @param newArguments the new arguments of the component
+     * @return a future completed once the arguments were updated
+     */
+    @NotNull
+    CompletableFuture<Void> updateArguments(final UUID id, final List<String> newArguments);
+
+    /**
+     * Sets the last usage time for a component.
+     *
+     * @param id       the ID of the component to update
+     * @param lastUsed the last usage time of the component
+     * @return a future completed once the last usage time was updated
+     */
+    @NotNull
+    CompletableFuture<Void> setLastUsed(final UUID id, final Instant lastUsed);
+
+    /**
+     * Adapts a blocking {@link ComponentStorage} to an {@link AsyncComponentStorage}, which runs
+     * the operations of the storage on the given {@code executor}.
+     *
+     * @param storage  the blocking storage to adapt
+     * @param executor the executor to run blocking operations on
+     * @return the asynchronous storage
+     */
+    @NotNull
+    static AsyncComponentStorage of(final ComponentStorage storage, final Executor executor) {
+        return new BlockingAsyncComponentStorage(storage, executor);
+    }
+}
@@ -0,0 +1,171 @@
+package com.matyrobbrt.jdahelper.components.storage;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An {@link ArgumentCodec} which serializes arguments in a compact binary format. <br>
+ * The format consists of a {@link #FORMAT_MARKER marker byte}, followed by the amount of arguments, and then
+ * by each argument as its UTF-8 encoded length followed by its UTF-8 bytes. All lengths are written as unsigned
+ * variable-length integers, 7 bits per byte. <br>
+ * Data which doesn't start with the marker byte is decoded as JSON, in order to support legacy rows.
+ */
+@ParametersAreNonnullByDefault
+public final class BinaryArgumentCodec implements ArgumentCodec {
+
+    /**
+     * The first byte of binary encoded arguments. JSON arrays can never start with this byte.
+     */
+    public static final byte FORMAT_MARKER = 0x01;
+
+    BinaryArgumentCodec() {
+    }
+
+    @Override
+    public @NotNull byte[] encode(List<String> arguments) {
+        int size = 1 + varIntSize(arguments.size());
+        for (final String argument : arguments) {
+            final int length = utf8Length(argument);
+            size += varIntSize(length) + length;
+        }
+
+        final byte[] data = new byte[size];
+        data[0] = FORMAT_MARKER;
+        int position = writeVarInt(data, 1, arguments.size());
+        for (final String argument : arguments) {
+            position = writeVarInt(data, position, utf8Length(argument));
+            position = writeUtf8(data, position, argument);
+        }
+        return data;
+    }
+
+    @Override
+    public @NotNull List<String> decode(byte[] data) {
+        if (data.length == 0) {
+            return List.of();
+        }
+        if (data[0] != FORMAT_MARKER) {
+            return JSON.decode(data);
+        }
+        final int[] position = {1};
+        final String[] arguments = new String[readVarInt(data, position)];
+        for (int i = 0; i < arguments.length; i++) {
+            final int length = readVarInt(data, position);
+            if (length > data.length - position[0]) {
+                throw new IllegalArgumentException("Argument length " + length + " exceeds the remaining " + (data.length - position[0]) + " bytes");
+            }
+            arguments[i] = new String(data, position[0], length, StandardCharsets.UTF_8);
+            position[0] += length;
+        }
+        return Arrays.asList(arguments);
+    }
+
+    /**
+     * Gets the amount of bytes the given value occupies when written as a variable-length integer.
+     *
+     * @param value the value, which is treated as unsigned
+     * @return the size of the value
+     */
+    public static int varIntSize(final int value) {
+        return (31 - Integer.numberOfLeadingZeros(value | 1)) / 7 + 1;
+    }
+
+    /**
+     * Writes a variable-length integer.
+     *
+     * @param data     the array to write to
+     * @param position the index to start writing at
+     * @param value    the value to write, which is treated as unsigned
+     * @return the index after the written value
+     */
+    public static int writeVarInt(final byte[] data, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            data[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[position++] = (byte) value;
+        return position;
+    }
+
+    /**
+     * Reads a variable-length integer.
+     *
+     * @param data     the array to read from
+     * @param position a one-element array holding the index to start reading at, which will be updated to the index after the value
+     * @return the read value
+     * @throws IllegalArgumentException if the value is malformed
+     */
+    public static int readVarInt(final byte[] data, final int[] position) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (position[0] >= data.length) {
+                throw new IllegalArgumentException("Unexpected end of data while reading a variable-length integer");
+            }
+            final byte b = data[position[0]++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    throw new IllegalArgumentException("Variable-length integer is negative");
+                }
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Variable-length integer is too long");
+    }
+
+    /**
+     * Gets the amount of bytes the string occupies when UTF-8 encoded. <br>
+     * Unpaired surrogates are counted as one byte, as they are encoded as {@code ?}.
+     *
+     * @param string the string
+     * @return the UTF-8 length of the string
+     */
+    static int utf8Length(final String string) {
+        final int chars = string.length();
+        int length = chars;
+        for (int i = 0; i < chars; i++) {
+            final char c = string.charAt(i);
+            if (c < 0x80) continue;
+            if (c < 0x800) {
+                length += 1;
+            } else if (Character.isHighSurrogate(c) && i + 1 < chars && Character.isLowSurrogate(string.charAt(i + 1))) {
+                // 4 bytes for 2 chars
+                length += 2;
+                i++;
+            } else if (!Character.isSurrogate(c)) {
+                length += 2;
+            }
+        }
+        return length;
+    }
+
+    static int writeUtf8(final byte[] data, int position, final String string) {
+        final int chars = string.length();
+        for (int i = 0; i < chars; i++) {
+            final char c = string.charAt(i);
+            if (c < 0x80) {
+                data[position++] = (byte) c;
+            } else if (c < 0x800) {
+                data[position++] = (byte) (0xC0 | (c >> 6));
+                data[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < chars && Character.isLowSurrogate(string.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, string.charAt(++i));
+                data[position++] = (byte) (0xF0 | (codePoint >> 18));
+                data[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                data[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                data[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                data[position++] = '?';
+            } else {
+                data[position++] = (byte) (0xE0 | (c >> 12));
+                data[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                data[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return position;
+    }
+}
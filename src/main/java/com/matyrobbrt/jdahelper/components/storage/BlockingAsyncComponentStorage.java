@@ -0,0 +1,76 @@
+package com.matyrobbrt.jdahelper.components.storage;
+
+import com.matyrobbrt.jdahelper.components.Component;
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * An {@link AsyncComponentStorage} which runs the operations of a blocking {@link ComponentStorage} on an {@link Executor}.
+ */
+@ParametersAreNonnullByDefault
+@SuppressWarnings("ClassCanBeRecord")
+public final class BlockingAsyncComponentStorage implements AsyncComponentStorage {
+
+    private final ComponentStorage delegate;
+    private final Executor executor;
+
+    BlockingAsyncComponentStorage(final ComponentStorage delegate, final Executor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> insertComponent(Component component) {
+        return CompletableFuture.runAsync(() -> delegate.insertComponent(component), executor);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> insertComponents(Collection<Component> components) {
+        return CompletableFuture.runAsync(() -> delegate.insertComponents(components), executor);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> removeComponent(UUID id) {
+        return CompletableFuture.runAsync(() -> delegate.removeComponent(id), executor);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> removeComponentsLastUsedBefore(Instant before) {
+        return CompletableFuture.runAsync(() -> delegate.removeComponentsLastUsedBefore(before), executor);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Integer> removeComponentsByFeature(String featureId) {
+        return CompletableFuture.supplyAsync(() -> delegate.removeComponentsByFeature(featureId), executor);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Optional<Component>> getComponent(UUID id) {
+        return CompletableFuture.supplyAsync(() -> delegate.getComponent(id), executor);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> updateArguments(UUID id, List<String> newArguments) {
+        return CompletableFuture.runAsync(() -> delegate.updateArguments(id, newArguments), executor);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Void> setLastUsed(UUID id, Instant lastUsed) {
+        return CompletableFuture.runAsync(() -> delegate.setLastUsed(id, lastUsed), executor);
+    }
+
+    /**
+     * @return the blocking storage this storage adapts
+     */
+    public ComponentStorage getDelegate() {
+        return delegate;
+    }
+}
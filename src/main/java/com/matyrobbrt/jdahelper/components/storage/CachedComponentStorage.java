@@ -0,0 +1,242 @@
+package com.matyrobbrt.jdahelper.components.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.matyrobbrt.jdahelper.components.Component;
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link ComponentStorage} which keeps recently used components of another storage in a bounded in-process cache. <br>
+ * Entries are evicted using a frequency-aware policy once the cache exceeds its {@link Config#maximumSize() maximum size},
+ * or after not being accessed for {@link Config#expireAfterAccess() some time}. <br>
+ * All writes go through to the delegate storage, except for the last usage times of cache hits. These are buffered, and written to the
+ * delegate in a single {@link ComponentStorage#setLastUsed(Map) batch} once {@link Config#lastUsedFlushThreshold() enough} of them
+ * accumulate, before components are removed by their last usage time, and when the storage is {@link #close() closed}.
+ * Buffered times are lost if the process crashes, in which case components may be removed up to a flush earlier than they should. <br>
+ * Components written during a {@link Session session} aren't cached until the session is closed, so that changes which are rolled back aren't served.
+ */
+@ParametersAreNonnullByDefault
+public class CachedComponentStorage implements ComponentStorage {
+
+    private final ComponentStorage delegate;
+    private final Cache<UUID, Component> cache;
+    private final Map<UUID, Instant> pendingLastUsed = new ConcurrentHashMap<>();
+    private final int lastUsedFlushThreshold;
+    private final SessionWrites sessionWrites = new SessionWrites();
+
+    CachedComponentStorage(final ComponentStorage delegate, final Config config) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.maximumSize())
+                .expireAfterAccess(config.expireAfterAccess())
+                .recordStats()
+                .build();
+        this.lastUsedFlushThreshold = config.lastUsedFlushThreshold();
+    }
+
+    @Override
+    public void insertComponent(Component component) {
+        delegate.insertComponent(component);
+        cache(component);
+    }
+
+    @Override
+    public void insertComponents(Collection<Component> components) {
+        delegate.insertComponents(components);
+        for (final var component : components) {
+            cache(component);
+        }
+    }
+
+    @Override
+    public void removeComponent(UUID id) {
+        pendingLastUsed.remove(id);
+        delegate.removeComponent(id);
+        cache.invalidate(id);
+    }
+
+    @Override
+    public void removeComponentsLastUsedBefore(Instant before) {
+        // Make sure that components which were used recently, but whose usage hasn't been written yet, survive
+        flush();
+        delegate.removeComponentsLastUsedBefore(before);
+        invalidateTemporary();
+    }
+
+    @Override
+    public int removeComponentsLastUsedBefore(Instant before, int limit) {
+        flush();
+        final int removed = delegate.removeComponentsLastUsedBefore(before, limit);
+        if (removed != 0) {
+            invalidateTemporary();
+        }
+        return removed;
+    }
+
+    @Override
+    public int removeComponentsByFeature(String featureId) {
+        final int removed = delegate.removeComponentsByFeature(featureId);
+        cache.asMap().values().removeIf(component -> component.featureId().equals(featureId));
+        return removed;
+    }
+
+    @Override
+    public @NotNull Optional<Component> getComponent(UUID id) {
+        if (sessionWrites.isWritten(id)) {
+            return delegate.getComponent(id);
+        }
+        final boolean[] loaded = new boolean[1];
+        final var component = cache.get(id, key -> {
+            loaded[0] = true;
+            return delegate.getComponent(key).orElse(null);
+        });
+        if (component != null && !loaded[0]) {
+            // The delegate updates the last usage time on lookup, so we need to do it ourselves on cache hits
+            pendingLastUsed.put(id, Instant.now());
+            if (pendingLastUsed.size() >= lastUsedFlushThreshold) {
+                flush();
+            }
+        }
+        return Optional.ofNullable(component);
+    }
+
+    @Override
+    public void updateArguments(UUID id, List<String> newArguments) {
+        delegate.updateArguments(id, newArguments);
+        if (sessionWrites.record(id)) {
+            cache.invalidate(id);
+            return;
+        }
+        cache.asMap().computeIfPresent(id, (key, component) -> new Component(component.featureId(), component.uuid(), newArguments, component.lifespan()));
+    }
+
+    @Override
+    public void setLastUsed(UUID id, Instant lastUsed) {
+        // A buffered time written later would overwrite this one
+        pendingLastUsed.remove(id);
+        delegate.setLastUsed(id, lastUsed);
+    }
+
+    @Override
+    public void setLastUsed(Map<UUID, Instant> lastUsed) {
+        pendingLastUsed.keySet().removeAll(lastUsed.keySet());
+        delegate.setLastUsed(lastUsed);
+    }
+
+    /**
+     * Writes the buffered last usage times of cache hits to the delegate storage, in a single batch.
+     */
+    public void flush() {
+        if (pendingLastUsed.isEmpty()) return;
+        final Map<UUID, Instant> batch = new HashMap<>();
+        for (final var entry : pendingLastUsed.entrySet()) {
+            // Only take the entry if it wasn't touched again in the meantime, otherwise leave it for the next flush
+            if (pendingLastUsed.remove(entry.getKey(), entry.getValue())) {
+                batch.put(entry.getKey(), entry.getValue());
+            }
+        }
+        try {
+            delegate.setLastUsed(batch);
+        } catch (RuntimeException exception) {
+            batch.forEach(pendingLastUsed::putIfAbsent);
+            throw exception;
+        }
+    }
+
+    @Override
+    public @NotNull Session openSession() {
+        return sessionWrites.open(delegate.openSession(), cache::invalidateAll);
+    }
+
+    private void cache(final Component component) {
+        if (sessionWrites.record(component.uuid())) {
+            cache.invalidate(component.uuid());
+        } else {
+            cache.put(component.uuid(), component);
+        }
+    }
+
+    /**
+     * Flushes the buffered last usage times, and closes the delegate storage.
+     */
+    @Override
+    public void close() {
+        flush();
+        delegate.close();
+    }
+
+    private void invalidateTemporary() {
+        // We don't know which components the delegate removed, so drop all the ones that it could have removed
+        cache.asMap().values().removeIf(component -> component.lifespan() != Component.Lifespan.PERMANENT);
+    }
+
+    /**
+     * Gets the statistics of the cache, which can be used for sizing it.
+     *
+     * @return the statistics of the cache
+     */
+    @NotNull
+    public CacheStats stats() {
+        final var stats = cache.stats();
+        return new CacheStats(stats.hitCount(), stats.missCount(), stats.evictionCount());
+    }
+
+    /**
+     * The configuration of a {@link CachedComponentStorage}.
+     *
+     * @param maximumSize            the maximum amount of components the cache may hold
+     * @param expireAfterAccess      how long a component may stay in the cache without being accessed
+     * @param lastUsedFlushThreshold the amount of buffered last usage times of cache hits which triggers a flush
+     */
+    public record Config(long maximumSize, Duration expireAfterAccess, int lastUsedFlushThreshold) {
+        public Config {
+            if (maximumSize < 0) {
+                throw new IllegalArgumentException("The maximum size cannot be negative!");
+            }
+            if (lastUsedFlushThreshold < 1) {
+                throw new IllegalArgumentException("The flush threshold must be positive!");
+            }
+        }
+
+        /**
+         * Creates a configuration which flushes the last usage times of cache hits once 1000 of them are buffered.
+         *
+         * @param maximumSize       the maximum amount of components the cache may hold
+         * @param expireAfterAccess how long a component may stay in the cache without being accessed
+         */
+        public Config(long maximumSize, Duration expireAfterAccess) {
+            this(maximumSize, expireAfterAccess, 1000);
+        }
+    }
+
+    /**
+     * Statistics about the cache of a {@link CachedComponentStorage}.
+     *
+     * @param hitCount      the amount of lookups that were served from the cache
+     * @param missCount     the amount of lookups that had to query the delegate storage
+     * @param evictionCount the amount of components that were evicted from the cache
+     */
+    public record CacheStats(long hitCount, long missCount, long evictionCount) {
+
+        /**
+         * Gets the ratio of lookups that were served from the cache.
+         *
+         * @return the hit rate, or {@code 1} if no lookups were made
+         */
+        public double hitRate() {
+            final long total = hitCount + missCount;
+            return total == 0 ? 1 : (double) hitCount / total;
+        }
+    }
+}
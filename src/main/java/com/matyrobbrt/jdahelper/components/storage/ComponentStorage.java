@@ -5,7 +5,10 @@ import org.jdbi.v3.core.Jdbi;
 import org.jetbrains.annotations.NotNull;
 
 import javax.annotation.ParametersAreNonnullByDefault;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -15,7 +18,7 @@ import java.util.UUID;
  * A class used for saving {@link Component}s
  */
 @ParametersAreNonnullByDefault
-public interface ComponentStorage {
+public interface ComponentStorage extends AutoCloseable {
 
     /**
      * Inserts a component into the database.
@@ -24,6 +27,18 @@ public interface ComponentStorage {
      */
     void insertComponent(final Component component);
 
+    /**
+     * Inserts multiple components into the database. <br>
+     * Storages backed by a remote database should override this in order to insert all the components in a single round-trip.
+     *
+     * @param components the components to insert
+     */
+    default void insertComponents(final Collection<Component> components) {
+        for (final var component : components) {
+            insertComponent(component);
+        }
+    }
+
     /**
      * Removes a component from the database.
      *
@@ -40,6 +55,35 @@ public interface ComponentStorage {
      */
     void removeComponentsLastUsedBefore(final Instant before);
 
+    /**
+     * Removes at most {@code limit} of the components which were last used before the given {@link Instant}. <br>
+     * This allows removing a large amount of components in chunks, so that the storage isn't locked for long periods of time.
+     * Storages which gain nothing from removing components in chunks may remove more than {@code limit} components.
+     *
+     * @param before the last moment when components could have been used in order to "survive" this operation
+     * @param limit  the maximum amount of components to remove
+     * @return the amount of removed components, or {@code -1} if the storage cannot tell, in which case all the components
+     * last used before the given {@link Instant} were removed
+     * @see #removeComponentsLastUsedBefore(Instant)
+     */
+    default int removeComponentsLastUsedBefore(final Instant before, final int limit) {
+        removeComponentsLastUsedBefore(before);
+        return -1;
+    }
+
+    /**
+     * Removes all the components of a feature, regardless of their lifespan. <br>
+     * This is used for purging the components of a listener which was {@link com.matyrobbrt.jdahelper.components.ComponentManager#removeListener(String, boolean) removed}.
+     * Components are usually not indexed by their feature, so this may scan the whole storage.
+     *
+     * @param featureId the feature ID of the components to remove
+     * @return the amount of removed components, or {@code -1} if the storage cannot tell
+     * @throws UnsupportedOperationException if the storage cannot remove components by their feature
+     */
+    default int removeComponentsByFeature(final String featureId) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot remove components by their feature");
+    }
+
     /**
      * Gets a component from the database.
      *
@@ -65,6 +109,65 @@ public interface ComponentStorage {
      */
     void setLastUsed(final UUID id, final Instant lastUsed);
 
+    /**
+     * Sets the last usage times of multiple components. <br>
+     * Storages backed by a remote database should override this in order to update all the components in a single round-trip.
+     *
+     * @param lastUsed the last usage times, by the ID of their component
+     */
+    default void setLastUsed(final Map<UUID, Instant> lastUsed) {
+        lastUsed.forEach(this::setLastUsed);
+    }
+
+    /**
+     * Opens a {@link Session session} bound to the current thread. Until the session is closed, the operations
+     * of this storage which are called from the current thread may share resources, such as a database connection and transaction. <br>
+     * Sessions are opened by the {@link com.matyrobbrt.jdahelper.components.ComponentManager manager} around the handling of an interaction.
+     * Opening a session while another one is open on the same thread does nothing. <br>
+     * Storages which use a transaction for the session only make its changes visible to other threads when the session is closed.
+     * This includes inserted components: until the listener which inserted a component returns, interactions with the component
+     * which are handled by other threads don't find it, and are answered as if the component was unknown. <br>
+     * By default, storages don't support sessions, and return {@link Session#NONE}.
+     *
+     * @return the session, which must be closed on the same thread
+     */
+    @NotNull
+    default Session openSession() {
+        return Session.NONE;
+    }
+
+    /**
+     * Closes this storage, writing any changes it may still buffer. <br>
+     * This should be called when the bot shuts down.
+     */
+    @Override
+    default void close() {
+    }
+
+    /**
+     * A unit of work of a {@link ComponentStorage}, opened using {@link #openSession()}.
+     */
+    @FunctionalInterface
+    interface Session extends AutoCloseable {
+        /**
+         * A session which does nothing.
+         */
+        Session NONE = () -> {};
+
+        /**
+         * Marks this session as failed, so that the changes made during it are discarded instead of committed when it is {@link #close() closed}. <br>
+         * By default, this does nothing, as storages without sessions apply changes immediately.
+         */
+        default void rollback() {
+        }
+
+        /**
+         * Closes this session, committing the changes made during it, unless it was {@link #rollback() rolled back}.
+         */
+        @Override
+        void close();
+    }
+
     /**
      * Creates a {@link SqlComponentStorage}.
      *
@@ -88,6 +191,8 @@ public interface ComponentStorage {
      *     );
      *     }
      * </pre>
+     * Alternatively, the storage can {@link SqlComponentStorage.SchemaMode#MIGRATE create and index the table itself}.
+     * @see SqlComponentStorage#builder(Jdbi, String)
      */
     @NotNull
     static ComponentStorage sql(final Jdbi jdbi, final String tableName) {
@@ -95,13 +200,136 @@ public interface ComponentStorage {
     }
 
     /**
-     * Creates an {@link InMemoryComponentStorage}.
+     * Creates a {@link PartitionedSqlComponentStorage}, which stores temporary components in tables partitioned by their last usage time.
+     *
+     * @param jdbi            the {@link Jdbi} instance to use for accessing the database
+     * @param tableName       the prefix of the names of the tables that will store components
+     * @param partitionPeriod the period of time covered by a partition
+     * @return the component storage
+     * @see PartitionedSqlComponentStorage#builder(Jdbi, String)
+     */
+    @NotNull
+    static PartitionedSqlComponentStorage partitionedSql(final Jdbi jdbi, final String tableName, final Duration partitionPeriod) {
+        return PartitionedSqlComponentStorage.builder(jdbi, tableName)
+                .partitionPeriod(partitionPeriod)
+                .build();
+    }
+
+    /**
+     * Creates an {@link InMemoryComponentStorage} holding the given components. <br>
+     * The components are copied into the storage, so changing {@code initial} afterwards doesn't affect the storage.
+     *
+     * @param initial the components the storage initially holds
+     * @return the component storage
+     */
+    @NotNull
+    static ComponentStorage inMemory(Map<UUID, InMemoryComponentStorage.ComponentInstance> initial) {
+        return new InMemoryComponentStorage(initial);
+    }
+
+    /**
+     * Creates an empty {@link InMemoryComponentStorage}.
+     *
+     * @return the component storage
+     */
+    @NotNull
+    static ComponentStorage inMemory() {
+        return new InMemoryComponentStorage(Map.of());
+    }
+
+    /**
+     * Creates an {@link InMemoryComponentStorage} which survives restarts, by loading the snapshot at {@code snapshotFile}, if it exists,
+     * and {@link InMemoryComponentStorage#startSnapshots(Path, Duration) periodically writing} snapshots to it. <br>
+     * A final snapshot is written when the storage is {@link #close() closed}.
+     *
+     * @param snapshotFile     the snapshot file
+     * @param snapshotInterval the interval between snapshots
+     * @return the component storage
+     */
+    @NotNull
+    static InMemoryComponentStorage persistentInMemory(final Path snapshotFile, final Duration snapshotInterval) {
+        return InMemoryComponentStorage.persistent(snapshotFile, snapshotInterval);
+    }
+
+    /**
+     * Creates a {@link LogComponentStorage}, which persists components to an append-only log in the given {@code directory},
+     * without a database. The existing log in the directory is replayed.
+     *
+     * @param directory the directory of the log
+     * @param config    the configuration of the storage
+     * @return the component storage
+     */
+    @NotNull
+    static LogComponentStorage log(final Path directory, final LogComponentStorage.Config config) {
+        return new LogComponentStorage(directory, config);
+    }
+
+    /**
+     * Creates a {@link ConcurrentComponentStorage}, with a concurrency level of 64.
+     *
+     * @return the component storage
+     */
+    @NotNull
+    static ConcurrentComponentStorage concurrentInMemory() {
+        return concurrentInMemory(64);
+    }
+
+    /**
+     * Creates a {@link ConcurrentComponentStorage}.
+     *
+     * @param concurrencyLevel the estimated amount of threads using the storage concurrently. This is clamped to {@code [1, 65536]}, rounded up to a power of two,
+     *                         and determines the amount of independently locked stripes of the storage
+     * @return the component storage
+     */
+    @NotNull
+    static ConcurrentComponentStorage concurrentInMemory(final int concurrencyLevel) {
+        return new ConcurrentComponentStorage(concurrencyLevel);
+    }
+
+    /**
+     * Creates a {@link CachedComponentStorage}, which caches the components of another storage.
+     *
+     * @param delegate the storage whose components to cache
+     * @param config   the configuration of the cache
+     * @return the component storage
+     */
+    @NotNull
+    static CachedComponentStorage cached(final ComponentStorage delegate, final CachedComponentStorage.Config config) {
+        return new CachedComponentStorage(delegate, config);
+    }
+
+    /**
+     * Creates a {@link NegativeCachedComponentStorage}, which remembers the IDs of components that another storage doesn't have.
+     *
+     * @param delegate the storage whose missing components to remember
+     * @param config   the configuration of the cache
+     * @return the component storage
+     */
+    @NotNull
+    static NegativeCachedComponentStorage negativeCached(final ComponentStorage delegate, final NegativeCachedComponentStorage.Config config) {
+        return new NegativeCachedComponentStorage(delegate, config);
+    }
+
+    /**
+     * Creates a {@link SingleFlightComponentStorage}, which coalesces concurrent lookups of the same component into a single lookup of another storage.
+     *
+     * @param delegate the storage to look up components in
+     * @return the component storage
+     */
+    @NotNull
+    static SingleFlightComponentStorage singleFlight(final ComponentStorage delegate) {
+        return new SingleFlightComponentStorage(delegate);
+    }
+
+    /**
+     * Creates a {@link TieredComponentStorage}, which keeps recently used components in memory, in front of a cold storage.
      *
-     * @param backingMap the backing map of the storage
+     * @param cold   the cold storage, usually a {@link SqlComponentStorage}
+     * @param config the configuration of the hot tier
      * @return the component storage
      */
     @NotNull
-    static ComponentStorage inMemory(Map<UUID, InMemoryComponentStorage.ComponentInstance> backingMap) {
-        return new InMemoryComponentStorage(backingMap);
+    static TieredComponentStorage tiered(final ComponentStorage cold, final TieredComponentStorage.Config config) {
+        return new TieredComponentStorage(cold, config);
     }
 }
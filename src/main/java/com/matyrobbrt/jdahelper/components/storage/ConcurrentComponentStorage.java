@@ -0,0 +1,328 @@
+package com.matyrobbrt.jdahelper.components.storage;
+
+import com.matyrobbrt.jdahelper.components.Component;
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A thread-safe, in-memory {@link ComponentStorage}. <br>
+ * Components are kept in open-addressing hash tables keyed by the two {@code long} halves of their ID, split into
+ * independently locked stripes, so that multiple shards can use the storage without contending on a single lock.
+ * Entries are stored in parallel primitive arrays, and their last usage time as epoch millis, so no object is
+ * kept per entry besides its feature ID and arguments. <br>
+ * Unlike {@link InMemoryComponentStorage}, {@link #getComponent(UUID) looking up} a component updates its last usage time.
+ */
+@ParametersAreNonnullByDefault
+public class ConcurrentComponentStorage implements ComponentStorage {
+    private static final VarHandle LONG_ARRAY = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final Component.Lifespan[] LIFESPANS = Component.Lifespan.values();
+
+    /**
+     * The maximum amount of stripes, which bounds the {@code concurrencyLevel} so that rounding it up to a power of two can't overflow.
+     */
+    private static final int MAXIMUM_STRIPES = 1 << 16;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    ConcurrentComponentStorage(final int concurrencyLevel) {
+        final int level = Math.min(Math.max(concurrencyLevel, 1), MAXIMUM_STRIPES);
+        final int stripeCount = level == 1 ? 1 : Integer.highestOneBit(level - 1) << 1;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stripeMask = stripeCount - 1;
+    }
+
+    @Override
+    public void insertComponent(Component component) {
+        final long msb = component.uuid().getMostSignificantBits();
+        final long lsb = component.uuid().getLeastSignificantBits();
+        final long hash = hash(msb, lsb);
+        final var stripe = stripeFor(hash);
+        final long stamp = stripe.lock.writeLock();
+        try {
+            stripe.put(msb, lsb, (int) (hash >>> 32), component, System.currentTimeMillis());
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void removeComponent(UUID id) {
+        final long msb = id.getMostSignificantBits();
+        final long lsb = id.getLeastSignificantBits();
+        final long hash = hash(msb, lsb);
+        final var stripe = stripeFor(hash);
+        final long stamp = stripe.lock.writeLock();
+        try {
+            final int slot = stripe.find(msb, lsb, (int) (hash >>> 32));
+            if (slot >= 0) {
+                stripe.removeAt(slot);
+            }
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void removeComponentsLastUsedBefore(Instant before) {
+        removeComponentsLastUsedBefore(before, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int removeComponentsLastUsedBefore(Instant before, int limit) {
+        // Each stripe is only locked while it is being swept, so there's no point in respecting the limit
+        final long cutoff = before.toEpochMilli();
+        int removed = 0;
+        for (final var stripe : stripes) {
+            final long stamp = stripe.lock.writeLock();
+            try {
+                removed += stripe.removeLastUsedBefore(cutoff);
+            } finally {
+                stripe.lock.unlockWrite(stamp);
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public int removeComponentsByFeature(String featureId) {
+        int removed = 0;
+        for (final var stripe : stripes) {
+            final long stamp = stripe.lock.writeLock();
+            try {
+                removed += stripe.removeFeature(featureId);
+            } finally {
+                stripe.lock.unlockWrite(stamp);
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public @NotNull Optional<Component> getComponent(UUID id) {
+        final long msb = id.getMostSignificantBits();
+        final long lsb = id.getLeastSignificantBits();
+        final long hash = hash(msb, lsb);
+        final var stripe = stripeFor(hash);
+        final long stamp = stripe.lock.readLock();
+        try {
+            final int slot = stripe.find(msb, lsb, (int) (hash >>> 32));
+            if (slot < 0) {
+                return Optional.empty();
+            }
+            // Concurrent readers may race to update the last usage time, so only ever move it forward
+            final long now = System.currentTimeMillis();
+            long current;
+            do {
+                current = (long) LONG_ARRAY.getVolatile(stripe.lastUsed, slot);
+            } while (current < now && !LONG_ARRAY.compareAndSet(stripe.lastUsed, slot, current, now));
+            return Optional.of(new Component(stripe.features[slot], id, stripe.arguments[slot], LIFESPANS[stripe.lifespans[slot]]));
+        } finally {
+            stripe.lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void updateArguments(UUID id, List<String> newArguments) {
+        final long msb = id.getMostSignificantBits();
+        final long lsb = id.getLeastSignificantBits();
+        final long hash = hash(msb, lsb);
+        final var stripe = stripeFor(hash);
+        final long stamp = stripe.lock.writeLock();
+        try {
+            final int slot = stripe.find(msb, lsb, (int) (hash >>> 32));
+            if (slot >= 0) {
+                stripe.arguments[slot] = newArguments;
+                stripe.lastUsed[slot] = System.currentTimeMillis();
+            }
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void setLastUsed(UUID id, Instant lastUsed) {
+        final long msb = id.getMostSignificantBits();
+        final long lsb = id.getLeastSignificantBits();
+        final long hash = hash(msb, lsb);
+        final var stripe = stripeFor(hash);
+        final long stamp = stripe.lock.writeLock();
+        try {
+            final int slot = stripe.find(msb, lsb, (int) (hash >>> 32));
+            if (slot >= 0) {
+                stripe.lastUsed[slot] = lastUsed.toEpochMilli();
+            }
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Gets the amount of components in this storage.
+     *
+     * @return the amount of components
+     */
+    public int size() {
+        int size = 0;
+        for (final var stripe : stripes) {
+            final long stamp = stripe.lock.readLock();
+            try {
+                size += stripe.size;
+            } finally {
+                stripe.lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    private Stripe stripeFor(final long hash) {
+        return stripes[(int) hash & stripeMask];
+    }
+
+    /**
+     * Mixes the halves of an ID. The lower 32 bits of the hash select the stripe, and the upper 32 bits the slot in the stripe.
+     */
+    static long hash(final long msb, final long lsb) {
+        long h = msb * 0x9E3779B97F4A7C15L ^ lsb;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    /**
+     * An open-addressing hash table with linear probing. A slot is empty if its feature is {@code null}. <br>
+     * The table is kept at most half full, so probing always ends at an empty slot.
+     */
+    private static final class Stripe {
+        private static final int INITIAL_CAPACITY = 16;
+
+        final StampedLock lock = new StampedLock();
+        long[] msbs = new long[INITIAL_CAPACITY];
+        long[] lsbs = new long[INITIAL_CAPACITY];
+        long[] lastUsed = new long[INITIAL_CAPACITY];
+        String[] features = new String[INITIAL_CAPACITY];
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        List<String>[] arguments = new List[INITIAL_CAPACITY];
+        byte[] lifespans = new byte[INITIAL_CAPACITY];
+        int size;
+
+        int find(final long msb, final long lsb, final int hash) {
+            final int mask = features.length - 1;
+            for (int i = hash & mask; features[i] != null; i = (i + 1) & mask) {
+                if (msbs[i] == msb && lsbs[i] == lsb) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        void put(final long msb, final long lsb, final int hash, final Component component, final long lastUsed) {
+            int slot = find(msb, lsb, hash);
+            if (slot < 0) {
+                if ((size + 1) * 2 > features.length) {
+                    resize(features.length * 2);
+                }
+                final int mask = features.length - 1;
+                slot = hash & mask;
+                while (features[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                msbs[slot] = msb;
+                lsbs[slot] = lsb;
+                size++;
+            }
+            set(slot, component.featureId(), component.arguments(), (byte) component.lifespan().ordinal(), lastUsed);
+        }
+
+        void removeAt(int slot) {
+            final int mask = features.length - 1;
+            // Shift back the entries following the removed one in its cluster, so that probing never stops early
+            int next = slot;
+            while (true) {
+                next = (next + 1) & mask;
+                if (features[next] == null) break;
+                final int home = (int) (hash(msbs[next], lsbs[next]) >>> 32) & mask;
+                final boolean canMove = slot <= next ? (home <= slot || home > next) : (home <= slot && home > next);
+                if (canMove) {
+                    msbs[slot] = msbs[next];
+                    lsbs[slot] = lsbs[next];
+                    set(slot, features[next], arguments[next], lifespans[next], lastUsed[next]);
+                    slot = next;
+                }
+            }
+            features[slot] = null;
+            arguments[slot] = null;
+            size--;
+        }
+
+        int removeLastUsedBefore(final long cutoff) {
+            int removed = 0;
+            final byte permanent = (byte) Component.Lifespan.PERMANENT.ordinal();
+            for (int i = 0; i < features.length; i++) {
+                // Removing an entry may shift the next one into its slot, so check the slot again
+                while (features[i] != null && lifespans[i] != permanent && lastUsed[i] < cutoff) {
+                    removeAt(i);
+                    removed++;
+                }
+            }
+            return removed;
+        }
+
+        int removeFeature(final String featureId) {
+            int removed = 0;
+            for (int i = 0; i < features.length; i++) {
+                // Removing an entry may shift the next one into its slot, so check the slot again
+                while (features[i] != null && features[i].equals(featureId)) {
+                    removeAt(i);
+                    removed++;
+                }
+            }
+            return removed;
+        }
+
+        private void set(final int slot, final String feature, final List<String> arguments, final byte lifespan, final long lastUsed) {
+            this.features[slot] = feature;
+            this.arguments[slot] = arguments;
+            this.lifespans[slot] = lifespan;
+            this.lastUsed[slot] = lastUsed;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private void resize(final int capacity) {
+            final long[] oldMsbs = msbs, oldLsbs = lsbs, oldLastUsed = lastUsed;
+            final String[] oldFeatures = features;
+            final List<String>[] oldArguments = arguments;
+            final byte[] oldLifespans = lifespans;
+
+            msbs = new long[capacity];
+            lsbs = new long[capacity];
+            lastUsed = new long[capacity];
+            features = new String[capacity];
+            arguments = new List[capacity];
+            lifespans = new byte[capacity];
+
+            final int mask = capacity - 1;
+            for (int i = 0; i < oldFeatures.length; i++) {
+                if (oldFeatures[i] == null) continue;
+                int slot = (int) (hash(oldMsbs[i], oldLsbs[i]) >>> 32) & mask;
+                while (features[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                msbs[slot] = oldMsbs[i];
+                lsbs[slot] = oldLsbs[i];
+                set(slot, oldFeatures[i], oldArguments[i], oldLifespans[i], oldLastUsed[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.matyrobbrt.jdahelper.components.storage;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+/**
+ * An index of components by their last usage time, grouped in buckets of a fixed width. <br>
+ * Expiring components using this index only visits the buckets older than the expiry moment,
+ * instead of every component.
+ */
+@ParametersAreNonnullByDefault
+final class ExpiryIndex {
+    private final long bucketMillis;
+    private final ConcurrentSkipListMap<Long, Set<UUID>> buckets = new ConcurrentSkipListMap<>();
+
+    ExpiryIndex(final long bucketMillis) {
+        this.bucketMillis = bucketMillis;
+    }
+
+    void add(final UUID id, final long lastUsed) {
+        final long bucket = bucketOf(lastUsed);
+        while (true) {
+            final var ids = buckets.computeIfAbsent(bucket, k -> ConcurrentHashMap.newKeySet());
+            ids.add(id);
+            // If the bucket was detached by a concurrent expiry in the meantime, add the ID again to a new bucket
+            if (buckets.get(bucket) == ids) return;
+        }
+    }
+
+    void remove(final UUID id, final long lastUsed) {
+        final var ids = buckets.get(bucketOf(lastUsed));
+        if (ids != null) {
+            ids.remove(id);
+        }
+    }
+
+    void move(final UUID id, final long oldLastUsed, final long newLastUsed) {
+        if (bucketOf(oldLastUsed) != bucketOf(newLastUsed)) {
+            remove(id, oldLastUsed);
+            add(id, newLastUsed);
+        }
+    }
+
+    /**
+     * Detaches all the buckets which may contain components last used before the given moment, and passes
+     * the IDs they contain to the {@code consumer}. <br>
+     * The consumer is responsible for {@link #add(UUID, long) re-adding} the IDs which are still alive.
+     *
+     * @param before   the expiry moment, in epoch millis
+     * @param consumer the consumer of the IDs of the detached buckets
+     */
+    void expire(final long before, final Consumer<UUID> consumer) {
+        // Snapshot the buckets first, as the IDs which survive may be added back to the last bucket
+        final var expired = new ArrayList<>(buckets.headMap(bucketOf(before), true).keySet());
+        for (final Long bucket : expired) {
+            final var ids = buckets.remove(bucket);
+            if (ids != null) {
+                ids.forEach(consumer);
+            }
+        }
+    }
+
+    private long bucketOf(final long millis) {
+        return Math.floorDiv(millis, bucketMillis);
+    }
+}
@@ -0,0 +1,83 @@
+package com.matyrobbrt.jdahelper.components.storage;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.nio.ByteBuffer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+import static com.matyrobbrt.jdahelper.components.storage.SqlComponentStorage.ARGUMENTS_ROW_NAME;
+import static com.matyrobbrt.jdahelper.components.storage.SqlComponentStorage.FEATURE_ROW_NAME;
+import static com.matyrobbrt.jdahelper.components.storage.SqlComponentStorage.ID_ROW_NAME;
+import static com.matyrobbrt.jdahelper.components.storage.SqlComponentStorage.LAST_USED_ROW_NAME;
+import static com.matyrobbrt.jdahelper.components.storage.SqlComponentStorage.LIFESPAN_ROW_NAME;
+
+/**
+ * The {@link SqlDialect#GENERIC generic} dialect, which other dialects build upon.
+ */
+@ParametersAreNonnullByDefault
+class GenericSqlDialect implements SqlDialect {
+
+    static final String COLUMNS = String.join(", ", FEATURE_ROW_NAME, ID_ROW_NAME, ARGUMENTS_ROW_NAME, LIFESPAN_ROW_NAME, LAST_USED_ROW_NAME);
+    static final String VALUES = ":feature, :id, :arguments, :lifespan, :last_used";
+    static final String SELECTED_COLUMNS = String.join(", ", FEATURE_ROW_NAME, ID_ROW_NAME, ARGUMENTS_ROW_NAME, LIFESPAN_ROW_NAME);
+
+    GenericSqlDialect() {
+    }
+
+    @Override
+    public @NotNull String idColumnType() {
+        return "varchar(36)";
+    }
+
+    @Override
+    public @NotNull String binaryColumnType() {
+        return "blob";
+    }
+
+    @Override
+    public @NotNull String timestampColumnType() {
+        return "timestamp";
+    }
+
+    @Override
+    public @NotNull Object idParameter(UUID id) {
+        return id.toString();
+    }
+
+    @Override
+    public @NotNull UUID readId(ResultSet rs, String column) throws SQLException {
+        return UUID.fromString(rs.getString(column));
+    }
+
+    @Override
+    public @NotNull String insert(String table) {
+        return "insert into %s (%s) values (%s)".formatted(table, COLUMNS, VALUES);
+    }
+
+    @Override
+    public @NotNull String deleteLastUsedBeforeLimited(String table) {
+        return "delete from %s where %s in (select %s from %s where %s <= :before and %s = :lifespan limit :limit)".formatted(
+                table, ID_ROW_NAME, ID_ROW_NAME, table, LAST_USED_ROW_NAME, LIFESPAN_ROW_NAME);
+    }
+
+    @Override
+    public @Nullable String lookupAndTouch(String table) {
+        return null;
+    }
+
+    static byte[] toBytes(final UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+
+    static UUID fromBytes(final byte[] bytes) {
+        final var buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
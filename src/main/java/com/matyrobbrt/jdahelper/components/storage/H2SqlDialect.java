@@ -0,0 +1,44 @@
+package com.matyrobbrt.jdahelper.components.storage;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+import static com.matyrobbrt.jdahelper.components.storage.SqlComponentStorage.ID_ROW_NAME;
+import static com.matyrobbrt.jdahelper.components.storage.SqlComponentStorage.LAST_USED_ROW_NAME;
+
+/**
+ * The {@link SqlDialect#H2 H2} dialect.
+ */
+@ParametersAreNonnullByDefault
+final class H2SqlDialect extends GenericSqlDialect {
+
+    @Override
+    public @NotNull String idColumnType() {
+        return "uuid";
+    }
+
+    @Override
+    public @NotNull String binaryColumnType() {
+        return "varbinary";
+    }
+
+    @Override
+    public @NotNull Object idParameter(UUID id) {
+        return id;
+    }
+
+    @Override
+    public @NotNull UUID readId(ResultSet rs, String column) throws SQLException {
+        return rs.getObject(column, UUID.class);
+    }
+
+    @Override
+    public @NotNull String lookupAndTouch(String table) {
+        return "select %s from final table (update %s set %s = :last_used where %s = :id)".formatted(
+                SELECTED_COLUMNS, table, LAST_USED_ROW_NAME, ID_ROW_NAME);
+    }
+}
@@ -2,37 +2,115 @@ package com.matyrobbrt.jdahelper.components.storage;
 
 import com.matyrobbrt.jdahelper.components.Component;
 import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @ParametersAreNonnullByDefault
-@SuppressWarnings("ClassCanBeRecord")
 public class InMemoryComponentStorage implements ComponentStorage {
+    private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryComponentStorage.class);
 
-    private final Map<UUID, ComponentInstance> map;
+    /**
+     * The width of the time buckets {@link Component.Lifespan#TEMPORARY temporary} components are indexed in for expiry.
+     */
+    static final Duration EXPIRY_RESOLUTION = Duration.ofSeconds(1);
 
-    InMemoryComponentStorage(Map<UUID, ComponentInstance> map) {
-        this.map = map;
+    private final ConcurrentMap<UUID, ComponentInstance> map;
+    private final ExpiryIndex expiryIndex = new ExpiryIndex(EXPIRY_RESOLUTION.toMillis());
+    @Nullable
+    private ScheduledExecutorService snapshotScheduler;
+    @Nullable
+    private Path snapshotFile;
+
+    /**
+     * Creates a storage holding the given components. <br>
+     * The components are copied, so that the expiry index is always in sync with the storage: changing {@code initial} afterwards doesn't affect the storage.
+     *
+     * @param initial the components the storage initially holds
+     */
+    InMemoryComponentStorage(Map<UUID, ComponentInstance> initial) {
+        this.map = new ConcurrentHashMap<>(initial);
+        map.forEach((id, instance) -> {
+            if (isTemporary(instance)) {
+                expiryIndex.add(id, instance.lastUsed.toEpochMilli());
+            }
+        });
     }
 
     @Override
     public void insertComponent(Component component) {
-        map.put(component.uuid(), new ComponentInstance(component));
+        final var instance = new ComponentInstance(component);
+        final var old = map.put(component.uuid(), instance);
+        if (old != null && isTemporary(old)) {
+            expiryIndex.remove(component.uuid(), old.lastUsed.toEpochMilli());
+        }
+        if (isTemporary(instance)) {
+            expiryIndex.add(component.uuid(), instance.lastUsed.toEpochMilli());
+        }
     }
 
     @Override
     public void removeComponent(UUID id) {
-        map.remove(id);
+        final var old = map.remove(id);
+        if (old != null && isTemporary(old)) {
+            expiryIndex.remove(id, old.lastUsed.toEpochMilli());
+        }
     }
 
     @Override
     public void removeComponentsLastUsedBefore(Instant before) {
-        map.values().removeIf(in -> in.component.lifespan() != Component.Lifespan.PERMANENT && in.lastUsed.isBefore(before));
+        removeComponentsLastUsedBefore(before, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int removeComponentsLastUsedBefore(Instant before, int limit) {
+        // Removing from memory doesn't lock anything, so we remove all the expired components regardless of the limit
+        final int[] removed = new int[1];
+        expiryIndex.expire(before.toEpochMilli(), id -> {
+            final var instance = map.get(id);
+            if (instance == null) return;
+            if (instance.lastUsed.isBefore(before)) {
+                if (map.remove(id, instance)) {
+                    removed[0]++;
+                }
+            } else {
+                // The component was used in the meantime, or shared its bucket with the expiry moment, so index it again
+                expiryIndex.add(id, instance.lastUsed.toEpochMilli());
+            }
+        });
+        return removed[0];
+    }
+
+    @Override
+    public int removeComponentsByFeature(String featureId) {
+        final int[] removed = new int[1];
+        map.entrySet().removeIf(entry -> {
+            final var instance = entry.getValue();
+            if (!instance.component.featureId().equals(featureId)) return false;
+            if (isTemporary(instance)) {
+                expiryIndex.remove(entry.getKey(), instance.lastUsed.toEpochMilli());
+            }
+            removed[0]++;
+            return true;
+        });
+        return removed[0];
     }
 
     @Override
@@ -52,8 +130,127 @@ public class InMemoryComponentStorage implements ComponentStorage {
     @Override
     public void setLastUsed(UUID id, Instant lastUsed) {
         final var c = this.map.get(id);
-        if (c != null)
+        if (c != null) {
+            final var old = c.lastUsed;
             c.lastUsed = lastUsed;
+            if (isTemporary(c)) {
+                expiryIndex.move(id, old.toEpochMilli(), lastUsed.toEpochMilli());
+            }
+        }
+    }
+
+    /**
+     * Writes a binary snapshot of the components in this storage to the given {@code file}, which can be
+     * {@link #loadSnapshot(Path) loaded} when the bot restarts. <br>
+     * The components are read one by one, without locking the storage, so interactions are handled while the snapshot is written.
+     * The snapshot therefore isn't a point-in-time copy of the storage: components changed while it is written may or may not be part of it. <br>
+     * The snapshot replaces the file only once it was fully written.
+     *
+     * @param file the file to write the snapshot to
+     * @return the amount of components in the snapshot
+     * @throws IOException if the snapshot could not be written
+     */
+    public int writeSnapshot(final Path file) throws IOException {
+        return InMemorySnapshot.write(file, map.values());
+    }
+
+    /**
+     * Loads the components from a snapshot {@link #writeSnapshot(Path) written} by a storage. <br>
+     * The snapshot is memory-mapped and its sections are decoded in parallel. Components which are already
+     * in this storage are kept, instead of being replaced by the ones in the snapshot.
+     *
+     * @param file the file to load the snapshot from
+     * @return the amount of components in the snapshot
+     * @throws IOException if the snapshot could not be read, or is corrupt
+     */
+    public int loadSnapshot(final Path file) throws IOException {
+        return InMemorySnapshot.read(file, this::load);
+    }
+
+    private void load(final ComponentInstance[] components) {
+        for (final var instance : components) {
+            if (map.putIfAbsent(instance.component.uuid(), instance) == null && isTemporary(instance)) {
+                expiryIndex.add(instance.component.uuid(), instance.lastUsed.toEpochMilli());
+            }
+        }
+    }
+
+    /**
+     * Starts periodically {@link #writeSnapshot(Path) writing snapshots} of this storage to the given {@code file}, on a background thread. <br>
+     * A final snapshot is written when this storage is {@link #close() closed}.
+     *
+     * @param file     the file to write the snapshots to
+     * @param interval the interval between snapshots
+     * @throws IllegalStateException if snapshots were already started
+     */
+    public synchronized void startSnapshots(final Path file, final Duration interval) {
+        if (snapshotScheduler != null) {
+            throw new IllegalStateException("Snapshots were already started");
+        }
+        snapshotFile = file;
+        snapshotScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            final var thread = new Thread(r, "InMemoryComponentStorage snapshots");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long millis = interval.toMillis();
+        snapshotScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                writeSnapshot(file);
+            } catch (Exception exception) {
+                LOGGER.error("Failed to write snapshot of components to {}", file, exception);
+            }
+        }, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic snapshots and writes a final snapshot, if snapshots were {@link #startSnapshots(Path, Duration) started}.
+     *
+     * @throws UncheckedIOException if the final snapshot could not be written
+     */
+    @Override
+    public synchronized void close() {
+        if (snapshotScheduler == null) return;
+        snapshotScheduler.shutdown();
+        try {
+            // Wait for a snapshot which is being written, so that it doesn't race with the final one
+            snapshotScheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        snapshotScheduler = null;
+        try {
+            writeSnapshot(snapshotFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write final snapshot of components to " + snapshotFile, e);
+        }
+    }
+
+    /**
+     * Creates an empty storage, which loads the components of the snapshot
+     * at {@code file}, if it exists, and {@link #startSnapshots(Path, Duration) periodically writes} snapshots to it.
+     *
+     * @param file     the snapshot file
+     * @param interval the interval between snapshots
+     * @return the storage
+     * @throws UncheckedIOException if the existing snapshot could not be loaded
+     */
+    static InMemoryComponentStorage persistent(final Path file, final Duration interval) {
+        final var storage = new InMemoryComponentStorage(Map.of());
+        if (Files.exists(file)) {
+            try {
+                final int loaded = storage.loadSnapshot(file);
+                LOGGER.info("Loaded {} components from snapshot {}", loaded, file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not load snapshot of components from " + file, e);
+            }
+        }
+        storage.startSnapshots(file, interval);
+        return storage;
+    }
+
+    private static boolean isTemporary(final ComponentInstance instance) {
+        return instance.component.lifespan() != Component.Lifespan.PERMANENT;
     }
 
     public static class ComponentInstance {
@@ -0,0 +1,296 @@
+package com.matyrobbrt.jdahelper.components.storage;
+
+import com.matyrobbrt.jdahelper.components.Component;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Reads and writes the binary snapshots of an {@link InMemoryComponentStorage}. <br>
+ * A snapshot consists of a header, followed by independently decodable sections of components, the table of feature IDs
+ * and the table of sections. It ends with a footer pointing at the two tables, so that it can be written in a single pass. <br>
+ * Each component is written as its ID, last usage time in epoch millis, lifespan, the index of its feature ID in the
+ * feature table and its arguments. Lengths are written as variable-length integers, like in the {@link BinaryArgumentCodec}.
+ */
+@ParametersAreNonnullByDefault
+final class InMemorySnapshot {
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final Component.Lifespan[] LIFESPANS = Component.Lifespan.values();
+
+    static final int MAGIC = 0x4A444853;
+    static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 8;
+    private static final int FOOTER_SIZE = 24;
+    private static final int SECTION_ENTRY_SIZE = 16;
+    /**
+     * The size after which a section is written to the file, which bounds the memory used while writing.
+     */
+    private static final int SECTION_SIZE = 1 << 20;
+    /**
+     * The size of a component without its feature ID and arguments: its ID, last usage time and lifespan.
+     */
+    private static final int FIXED_ENTRY_SIZE = 8 * 3 + 1;
+
+    private InMemorySnapshot() {
+    }
+
+    /**
+     * Writes a snapshot of the given components. <br>
+     * The snapshot is written to a temporary file first, which then replaces the {@code file}, so that a crash
+     * while writing never leaves a corrupt snapshot behind.
+     *
+     * @param file       the file to write the snapshot to
+     * @param components the components to write
+     * @return the amount of written components
+     */
+    static int write(final Path file, final Iterable<InMemoryComponentStorage.ComponentInstance> components) throws IOException {
+        final var directory = file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        final var temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            final int written;
+            try (final var channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                written = write(channel, components);
+                channel.force(false);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return written;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static int write(final FileChannel channel, final Iterable<InMemoryComponentStorage.ComponentInstance> components) throws IOException {
+        final Map<String, Integer> featureIndexes = new HashMap<>();
+        final List<String> features = new ArrayList<>();
+        final List<long[]> sections = new ArrayList<>();
+
+        writeFully(channel, ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip());
+        long offset = HEADER_SIZE;
+
+        byte[] section = new byte[SECTION_SIZE];
+        int position = 0;
+        int entries = 0;
+        int total = 0;
+        for (final var instance : components) {
+            // Read the fields once, as the component may be updated concurrently
+            final var component = instance.component;
+            final var lastUsed = instance.lastUsed;
+            final int feature = featureIndexes.computeIfAbsent(component.featureId(), id -> {
+                features.add(id);
+                return features.size() - 1;
+            });
+
+            final var arguments = component.arguments();
+            int size = FIXED_ENTRY_SIZE + BinaryArgumentCodec.varIntSize(feature) + BinaryArgumentCodec.varIntSize(arguments.size());
+            for (final var argument : arguments) {
+                final int length = BinaryArgumentCodec.utf8Length(argument);
+                size += BinaryArgumentCodec.varIntSize(length) + length;
+            }
+
+            if (position + size > section.length) {
+                if (entries != 0) {
+                    sections.add(new long[] {offset, position, entries});
+                    writeFully(channel, ByteBuffer.wrap(section, 0, position));
+                    offset += position;
+                    position = 0;
+                    entries = 0;
+                }
+                if (size > section.length) {
+                    section = new byte[size];
+                }
+            }
+
+            LONG.set(section, position, component.uuid().getMostSignificantBits());
+            LONG.set(section, position + 8, component.uuid().getLeastSignificantBits());
+            LONG.set(section, position + 16, lastUsed.toEpochMilli());
+            section[position + 24] = (byte) component.lifespan().ordinal();
+            position = BinaryArgumentCodec.writeVarInt(section, position + FIXED_ENTRY_SIZE, feature);
+            position = BinaryArgumentCodec.writeVarInt(section, position, arguments.size());
+            for (final var argument : arguments) {
+                position = BinaryArgumentCodec.writeVarInt(section, position, BinaryArgumentCodec.utf8Length(argument));
+                position = BinaryArgumentCodec.writeUtf8(section, position, argument);
+            }
+            entries++;
+            total++;
+        }
+        if (entries != 0) {
+            sections.add(new long[] {offset, position, entries});
+            writeFully(channel, ByteBuffer.wrap(section, 0, position));
+            offset += position;
+        }
+
+        final long featureTableOffset = offset;
+        final var featureTable = new ByteArrayBuilder();
+        featureTable.writeVarInt(features.size());
+        for (final var feature : features) {
+            final var bytes = feature.getBytes(StandardCharsets.UTF_8);
+            featureTable.writeVarInt(bytes.length);
+            featureTable.write(bytes);
+        }
+        writeFully(channel, ByteBuffer.wrap(featureTable.data, 0, featureTable.size));
+        offset += featureTable.size;
+
+        final var sectionTable = ByteBuffer.allocate(sections.size() * SECTION_ENTRY_SIZE + FOOTER_SIZE);
+        for (final long[] sectionEntry : sections) {
+            sectionTable.putLong(sectionEntry[0]).putInt((int) sectionEntry[1]).putInt((int) sectionEntry[2]);
+        }
+        sectionTable.putLong(featureTableOffset).putLong(offset).putInt(sections.size()).putInt(MAGIC);
+        writeFully(channel, sectionTable.flip());
+        return total;
+    }
+
+    /**
+     * Reads a snapshot. The file is memory-mapped, and its sections are decoded in parallel. <br>
+     * The {@code consumer} is called from multiple threads at once, with the decoded components of a section each time.
+     *
+     * @param file     the file to read the snapshot from
+     * @param consumer the consumer of the decoded components
+     * @return the amount of read components
+     */
+    static int read(final Path file, final Consumer<? super InMemoryComponentStorage.ComponentInstance[]> consumer) throws IOException {
+        try (final var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long fileSize = channel.size();
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + file + " is too large to be mapped: " + fileSize + " bytes");
+            }
+            if (fileSize < HEADER_SIZE + FOOTER_SIZE) {
+                throw new IOException("Snapshot " + file + " is truncated");
+            }
+            final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt((int) fileSize - 4) != MAGIC) {
+                throw new IOException("File " + file + " is not a component snapshot");
+            }
+            if (buffer.getInt(4) != VERSION) {
+                throw new IOException("Unsupported version of snapshot " + file + ": " + buffer.getInt(4));
+            }
+
+            final int footer = (int) fileSize - FOOTER_SIZE;
+            final int featureTableOffset = checkedOffset(buffer.getLong(footer), fileSize, file);
+            final int sectionTableOffset = checkedOffset(buffer.getLong(footer + 8), fileSize, file);
+            final int sectionCount = buffer.getInt(footer + 16);
+            if (sectionCount < 0 || sectionTableOffset + (long) sectionCount * SECTION_ENTRY_SIZE != footer) {
+                throw new IOException("Snapshot " + file + " has a corrupt section table");
+            }
+
+            try {
+                final String[] features = readFeatures(bytes(buffer, featureTableOffset, sectionTableOffset - featureTableOffset));
+                return IntStream.range(0, sectionCount)
+                        .parallel()
+                        .map(section -> {
+                            final int entry = sectionTableOffset + section * SECTION_ENTRY_SIZE;
+                            final int offset = (int) buffer.getLong(entry);
+                            final var components = readSection(bytes(buffer, offset, buffer.getInt(entry + 8)), buffer.getInt(entry + 12), features);
+                            consumer.accept(components);
+                            return components.length;
+                        })
+                        .sum();
+            } catch (IndexOutOfBoundsException | IllegalArgumentException | NegativeArraySizeException e) {
+                throw new IOException("Snapshot " + file + " is corrupt", e);
+            }
+        }
+    }
+
+    private static InMemoryComponentStorage.ComponentInstance[] readSection(final byte[] data, final int entries, final String[] features) {
+        final var components = new InMemoryComponentStorage.ComponentInstance[entries];
+        final int[] position = {0};
+        for (int i = 0; i < entries; i++) {
+            final int start = position[0];
+            final var id = new UUID((long) LONG.get(data, start), (long) LONG.get(data, start + 8));
+            final long lastUsed = (long) LONG.get(data, start + 16);
+            final var lifespan = LIFESPANS[data[start + 24]];
+            position[0] = start + FIXED_ENTRY_SIZE;
+            final var feature = features[BinaryArgumentCodec.readVarInt(data, position)];
+            final String[] arguments = new String[BinaryArgumentCodec.readVarInt(data, position)];
+            for (int j = 0; j < arguments.length; j++) {
+                final int length = BinaryArgumentCodec.readVarInt(data, position);
+                arguments[j] = new String(data, position[0], length, StandardCharsets.UTF_8);
+                position[0] += length;
+            }
+
+            final var instance = new InMemoryComponentStorage.ComponentInstance(new Component(feature, id, Arrays.asList(arguments), lifespan));
+            instance.lastUsed = Instant.ofEpochMilli(lastUsed);
+            components[i] = instance;
+        }
+        return components;
+    }
+
+    private static String[] readFeatures(final byte[] data) {
+        final int[] position = {0};
+        final String[] features = new String[BinaryArgumentCodec.readVarInt(data, position)];
+        for (int i = 0; i < features.length; i++) {
+            final int length = BinaryArgumentCodec.readVarInt(data, position);
+            features[i] = new String(data, position[0], length, StandardCharsets.UTF_8);
+            position[0] += length;
+        }
+        return features;
+    }
+
+    private static byte[] bytes(final ByteBuffer buffer, final int offset, final int length) {
+        final byte[] data = new byte[length];
+        buffer.get(offset, data);
+        return data;
+    }
+
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static int checkedOffset(final long offset, final long fileSize, final Path file) throws IOException {
+        if (offset < HEADER_SIZE || offset > fileSize - FOOTER_SIZE) {
+            throw new IOException("Snapshot " + file + " has an invalid table offset: " + offset);
+        }
+        return (int) offset;
+    }
+
+    private static final class ByteArrayBuilder {
+        byte[] data = new byte[256];
+        int size;
+
+        void writeVarInt(final int value) {
+            ensureCapacity(BinaryArgumentCodec.varIntSize(value));
+            size = BinaryArgumentCodec.writeVarInt(data, size, value);
+        }
+
+        void write(final byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, data, size, bytes.length);
+            size += bytes.length;
+        }
+
+        private void ensureCapacity(final int extra) {
+            if (size + extra > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + extra));
+            }
+        }
+    }
+}
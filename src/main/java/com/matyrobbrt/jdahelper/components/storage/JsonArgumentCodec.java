@@ -0,0 +1,42 @@
+package com.matyrobbrt.jdahelper.components.storage;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+@ParametersAreNonnullByDefault
+final class JsonArgumentCodec implements ArgumentCodec {
+    static final Gson GSON = new GsonBuilder().setLenient().disableHtmlEscaping().create();
+    private static final Type STRING_LIST_TYPE = new TypeToken<List<String>>() {}.getType();
+
+    @Override
+    public @NotNull byte[] encode(List<String> arguments) {
+        return toJson(arguments).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public @NotNull List<String> decode(byte[] data) {
+        return fromJson(new String(data, StandardCharsets.UTF_8));
+    }
+
+    static String toJson(final List<?> arguments) {
+        return GSON.toJson(arguments);
+    }
+
+    static List<String> fromJson(final String json) {
+        try {
+            final List<String> arguments = GSON.fromJson(json, STRING_LIST_TYPE);
+            // Gson decodes empty input as null
+            return arguments == null ? List.of() : arguments;
+        } catch (JsonParseException exception) {
+            throw new IllegalArgumentException("Malformed JSON arguments: " + json, exception);
+        }
+    }
+}
@@ -0,0 +1,789 @@
+package com.matyrobbrt.jdahelper.components.storage;
+
+import com.matyrobbrt.jdahelper.components.Component;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * A file-backed {@link ComponentStorage}, which doesn't need a database. <br>
+ * Every change to the storage is appended as a record to a log, which is split into segment files in a directory. Each record is
+ * prefixed by its length and a CRC32C checksum of its contents. An in-memory index maps the ID of each component to the position
+ * of its latest record, and segments are memory-mapped, so lookups read components straight from the page cache. <br>
+ * When the storage is opened, the log is replayed in order to rebuild the index. A record that was only partially written when the
+ * process crashed fails its checksum, and the log is truncated before it. <br>
+ * Superseded, removed and expired records stay in the log until it is {@link #compact() compacted}, which rewrites the live
+ * components to a single segment. Compaction runs in the background once the share of garbage in the log exceeds the
+ * {@link Config#compactionThreshold() compaction threshold}. <br>
+ * A compacted segment starts with a marker record, and replaces all the segments before it: when the log is opened, the segments
+ * older than the newest compacted segment are deleted without being replayed, even if the compaction didn't get to delete them.
+ */
+@ParametersAreNonnullByDefault
+public class LogComponentStorage implements ComponentStorage {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogComponentStorage.class);
+    private static final Component.Lifespan[] LIFESPANS = Component.Lifespan.values();
+
+    private static final byte PUT = 1;
+    private static final byte TOUCH = 2;
+    private static final byte REMOVE = 3;
+    private static final byte EXPIRE = 4;
+    /**
+     * The first record of a compacted segment, which holds all the live components of the segments before it.
+     */
+    private static final byte COMPACTED = 5;
+
+    /**
+     * The size of the length and checksum of a record.
+     */
+    private static final int RECORD_HEADER_SIZE = 8;
+    /**
+     * The size of the type, component ID and timestamp every record starts with.
+     */
+    private static final int FIXED_BODY_SIZE = 1 + 8 + 8 + 8;
+    private static final int TIMESTAMP_OFFSET = RECORD_HEADER_SIZE + 1 + 8 + 8;
+    private static final int MARKER_SIZE = RECORD_HEADER_SIZE + FIXED_BODY_SIZE;
+
+    private static final String SEGMENT_EXTENSION = ".log";
+    private static final String COMPACTION_EXTENSION = ".compact";
+
+    private final Path directory;
+    private final Config config;
+    private final Map<UUID, IndexEntry> index = new ConcurrentHashMap<>();
+    private final ExpiryIndex expiryIndex = new ExpiryIndex(InMemoryComponentStorage.EXPIRY_RESOLUTION.toMillis());
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Object compactionLock = new Object();
+    @Nullable
+    private final ScheduledExecutorService compactor;
+
+    // Guarded by the lock
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment active;
+    private int writePosition;
+
+    LogComponentStorage(final Path directory, final Config config) {
+        this.directory = directory;
+        this.config = config;
+        try {
+            Files.createDirectories(directory);
+            final List<Path> files = new ArrayList<>();
+            try (final var stream = Files.list(directory)) {
+                for (final var file : (Iterable<Path>) stream::iterator) {
+                    final var name = file.getFileName().toString();
+                    if (name.endsWith(SEGMENT_EXTENSION)) {
+                        files.add(file);
+                    } else if (name.endsWith(COMPACTION_EXTENSION)) {
+                        // Left over by a compaction which didn't complete
+                        Files.deleteIfExists(file);
+                    }
+                }
+            }
+            files.sort(null);
+            for (int i = files.size() - 1; i > 0; i--) {
+                if (isCompacted(files.get(i))) {
+                    // Left over by a compaction which didn't get to delete them
+                    final var superseded = files.subList(0, i);
+                    for (final var file : superseded) {
+                        Files.deleteIfExists(file);
+                    }
+                    superseded.clear();
+                    break;
+                }
+            }
+
+            for (int i = 0; i < files.size(); i++) {
+                final var file = files.get(i);
+                final boolean last = i == files.size() - 1;
+                final var name = file.getFileName().toString();
+                final var segment = Segment.open(file, Long.parseLong(name.substring(0, name.length() - SEGMENT_EXTENSION.length())), last ? config.segmentSize() : 0, last);
+                final int end = replay(segment, last);
+                segments.add(segment);
+                if (last) {
+                    active = segment;
+                    writePosition = end;
+                }
+            }
+            if (active == null) {
+                active = Segment.open(directory.resolve(segmentName(0)), 0, config.segmentSize(), true);
+                segments.add(active);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open component log in " + directory, e);
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Component log in " + directory + " contains a segment with an invalid name", e);
+        }
+
+        if (config.compactionInterval().isZero()) {
+            this.compactor = null;
+        } else {
+            this.compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+                final var thread = new Thread(r, "LogComponentStorage compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            final long interval = config.compactionInterval().toMillis();
+            compactor.scheduleWithFixedDelay(() -> {
+                try {
+                    if (getGarbageRatio() >= config.compactionThreshold()) {
+                        compact();
+                    }
+                } catch (Exception exception) {
+                    LOGGER.error("Failed to compact component log in {}", directory, exception);
+                }
+            }, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void insertComponent(Component component) {
+        final long now = System.currentTimeMillis();
+        final byte[] record = encodePut(component, now);
+        lock.lock();
+        try {
+            put(component, record, now);
+            sync();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void insertComponents(Collection<Component> components) {
+        final long now = System.currentTimeMillis();
+        final List<byte[]> records = new ArrayList<>(components.size());
+        for (final var component : components) {
+            records.add(encodePut(component, now));
+        }
+        lock.lock();
+        try {
+            int i = 0;
+            for (final var component : components) {
+                put(component, records.get(i++), now);
+            }
+            sync();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void removeComponent(UUID id) {
+        lock.lock();
+        try {
+            if (index.containsKey(id)) {
+                appendGarbage(encode(REMOVE, id, System.currentTimeMillis()));
+                unindex(id);
+                sync();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void removeComponentsLastUsedBefore(Instant before) {
+        removeComponentsLastUsedBefore(before, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int removeComponentsLastUsedBefore(Instant before, int limit) {
+        // Expiry only touches the in-memory index and appends a single record, so we remove all the expired components regardless of the limit
+        lock.lock();
+        try {
+            appendGarbage(encode(EXPIRE, new UUID(0, 0), before.toEpochMilli()));
+            final int removed = expire(before.toEpochMilli());
+            sync();
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int removeComponentsByFeature(String featureId) {
+        // The index doesn't know the feature of the components, so the feature of each live record has to be read
+        lock.lock();
+        try {
+            final long now = System.currentTimeMillis();
+            int removed = 0;
+            for (final var entry : List.copyOf(index.entrySet())) {
+                if (read(entry.getKey(), entry.getValue()).featureId().equals(featureId)) {
+                    appendGarbage(encode(REMOVE, entry.getKey(), now));
+                    unindex(entry.getKey());
+                    removed++;
+                }
+            }
+            if (removed != 0) {
+                sync();
+            }
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public @NotNull Optional<Component> getComponent(UUID id) {
+        final var entry = index.get(id);
+        return entry == null ? Optional.empty() : Optional.of(read(id, entry));
+    }
+
+    @Override
+    public void updateArguments(UUID id, List<String> newArguments) {
+        lock.lock();
+        try {
+            final var entry = index.get(id);
+            if (entry != null) {
+                final var old = read(id, entry);
+                final var component = new Component(old.featureId(), id, newArguments, old.lifespan());
+                put(component, encodePut(component, entry.lastUsed), entry.lastUsed);
+                sync();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void setLastUsed(UUID id, Instant lastUsed) {
+        lock.lock();
+        try {
+            if (index.containsKey(id)) {
+                appendGarbage(encode(TOUCH, id, lastUsed.toEpochMilli()));
+                touch(id, lastUsed.toEpochMilli());
+                sync();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rewrites the live components of all the segments of the log, except the one being appended to, to a single segment,
+     * and deletes the old segments. <br>
+     * Components can be used while the log is being compacted. This method is usually called by the background compactor.
+     *
+     * @throws UncheckedIOException if the log could not be compacted
+     */
+    public void compact() {
+        synchronized (compactionLock) {
+            final List<Segment> sealed;
+            lock.lock();
+            try {
+                if (writePosition > 0) {
+                    roll();
+                }
+                sealed = List.copyOf(segments.subList(0, segments.size() - 1));
+            } finally {
+                lock.unlock();
+            }
+            if (sealed.isEmpty()) return;
+
+            // New records are only appended to the active segment, so the live records of the sealed segments can only decrease from now on
+            final Set<Segment> sealedSet = Set.copyOf(sealed);
+            final List<UUID> ids = new ArrayList<>();
+            final List<IndexEntry> entries = new ArrayList<>();
+            long liveSize = 0;
+            for (final var entry : index.entrySet()) {
+                if (sealedSet.contains(entry.getValue().segment)) {
+                    ids.add(entry.getKey());
+                    entries.add(entry.getValue());
+                    liveSize += entry.getValue().size;
+                }
+            }
+            if (liveSize + MARKER_SIZE > Integer.MAX_VALUE) {
+                LOGGER.warn("Cannot compact component log in {}, as its {} bytes of live components don't fit in a single segment", directory, liveSize);
+                return;
+            }
+
+            // The compacted segment takes the place of the newest sealed segment, so that it is still replayed before the active one.
+            // Its marker makes the older segments obsolete as soon as it is moved in place, so a crash before they are deleted can't resurrect their records
+            final var target = sealed.get(sealed.size() - 1);
+            final var temp = directory.resolve(segmentName(target.sequence) + COMPACTION_EXTENSION);
+            try {
+                final int[] positions = new int[entries.size()];
+                final Segment compacted;
+                try (final var channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    final var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, MARKER_SIZE + liveSize);
+                    buffer.put(0, encode(COMPACTED, new UUID(0, 0), System.currentTimeMillis()));
+                    int position = MARKER_SIZE;
+                    for (int i = 0; i < entries.size(); i++) {
+                        final var entry = entries.get(i);
+                        final byte[] record = new byte[entry.size];
+                        entry.segment.buffer.get(entry.position, record);
+                        // Fold the last usage time, which may come from touch records that are dropped, into the copy
+                        ByteBuffer.wrap(record).putLong(TIMESTAMP_OFFSET, entry.lastUsed);
+                        seal(record);
+                        buffer.put(position, record);
+                        positions[i] = position;
+                        position += record.length;
+                    }
+                    buffer.force();
+                    compacted = new Segment(target.sequence, target.file, buffer);
+                    compacted.size = position;
+                }
+                move(temp, target.file);
+
+                lock.lock();
+                try {
+                    for (int i = 0; i < entries.size(); i++) {
+                        final var old = entries.get(i);
+                        if (!index.replace(ids.get(i), old, new IndexEntry(compacted, positions[i], old.size, old.temporary, old.lastUsed))) {
+                            // The component was changed or removed while compacting
+                            compacted.garbage += old.size;
+                        }
+                    }
+                    segments.removeAll(sealed);
+                    segments.add(0, compacted);
+                } finally {
+                    lock.unlock();
+                }
+
+                for (final var segment : sealed) {
+                    if (segment != target) {
+                        Files.deleteIfExists(segment.file);
+                    }
+                }
+                LOGGER.debug("Compacted {} segments of component log in {} into {} bytes", sealed.size(), directory, liveSize);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not compact component log in " + directory, e);
+            } finally {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    LOGGER.warn("Could not delete temporary compaction file {}", temp, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the amount of components in this storage.
+     *
+     * @return the amount of components
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Gets the amount of bytes of the log, including superseded records.
+     *
+     * @return the size of the log
+     */
+    public long getLogSize() {
+        lock.lock();
+        try {
+            long size = 0;
+            for (final var segment : segments) {
+                size += segment == active ? writePosition : segment.size;
+            }
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the share of the log made of records which were superseded, removed or expired, and would be dropped by compaction.
+     *
+     * @return the garbage ratio, between {@code 0} and {@code 1}
+     */
+    public double getGarbageRatio() {
+        lock.lock();
+        try {
+            long size = 0;
+            long garbage = 0;
+            for (final var segment : segments) {
+                size += segment == active ? writePosition : segment.size;
+                garbage += segment.garbage;
+            }
+            return size == 0 ? 0 : (double) garbage / size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops the background compactor and flushes the log to the disk.
+     */
+    @Override
+    public void close() {
+        if (compactor != null) {
+            compactor.shutdown();
+            try {
+                compactor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        lock.lock();
+        try {
+            active.buffer.force();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Component read(final UUID id, final IndexEntry entry) {
+        final byte[] data = new byte[entry.size - RECORD_HEADER_SIZE - FIXED_BODY_SIZE];
+        entry.segment.buffer.get(entry.position + RECORD_HEADER_SIZE + FIXED_BODY_SIZE, data);
+        final var lifespan = LIFESPANS[data[0]];
+        final int[] position = {1};
+        final var feature = readString(data, position);
+        final String[] arguments = new String[BinaryArgumentCodec.readVarInt(data, position)];
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = readString(data, position);
+        }
+        return new Component(feature, id, Arrays.asList(arguments), lifespan);
+    }
+
+    private void put(final Component component, final byte[] record, final long lastUsed) {
+        final int position = append(record);
+        index(component.uuid(), new IndexEntry(active, position, record.length, component.lifespan() != Component.Lifespan.PERMANENT, lastUsed));
+    }
+
+    private void appendGarbage(final byte[] record) {
+        append(record);
+        // Records which only change the index are folded into the live records by compaction
+        active.garbage += record.length;
+    }
+
+    private int append(final byte[] record) {
+        if (writePosition + record.length > active.buffer.capacity()) {
+            roll();
+        }
+        final int position = writePosition;
+        active.buffer.put(position, record);
+        writePosition += record.length;
+        return position;
+    }
+
+    private void roll() {
+        final var old = active;
+        old.size = writePosition;
+        if (config.syncWrites()) {
+            old.buffer.force();
+        }
+        try {
+            active = Segment.open(directory.resolve(segmentName(old.sequence + 1)), old.sequence + 1, config.segmentSize(), true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create component log segment in " + directory, e);
+        }
+        segments.add(active);
+        writePosition = 0;
+    }
+
+    private void sync() {
+        if (config.syncWrites()) {
+            active.buffer.force();
+        }
+    }
+
+    /**
+     * Replays the records of a segment, in order to rebuild the index.
+     *
+     * @return the position after the last valid record of the segment
+     */
+    private int replay(final Segment segment, final boolean last) throws IOException {
+        final var buffer = segment.buffer;
+        final int limit = buffer.capacity();
+        int position = 0;
+        while (position + RECORD_HEADER_SIZE <= limit) {
+            final int length = buffer.getInt(position);
+            if (length == 0) break;
+
+            if (length < FIXED_BODY_SIZE || length > limit - position - RECORD_HEADER_SIZE || checksum(buffer, position + RECORD_HEADER_SIZE, length) != buffer.getInt(position + 4)) {
+                LOGGER.warn("Discarding the corrupt tail of component log segment {}, starting at position {}", segment.file, position);
+                if (last) {
+                    // Clear the partially written record, so that it is never mistaken for a record once the log is appended to
+                    final int end = length <= 0 ? position + RECORD_HEADER_SIZE : (int) Math.min(limit, (long) position + RECORD_HEADER_SIZE + length);
+                    buffer.put(position, new byte[end - position]);
+                }
+                break;
+            }
+
+            final int body = position + RECORD_HEADER_SIZE;
+            final var id = new UUID(buffer.getLong(body + 1), buffer.getLong(body + 9));
+            final long timestamp = buffer.getLong(body + 17);
+            final int size = RECORD_HEADER_SIZE + length;
+            switch (buffer.get(body)) {
+                case PUT -> index(id, new IndexEntry(segment, position, size, buffer.get(body + FIXED_BODY_SIZE) != Component.Lifespan.PERMANENT.ordinal(), timestamp));
+                case TOUCH -> {
+                    segment.garbage += size;
+                    touch(id, timestamp);
+                }
+                case REMOVE -> {
+                    segment.garbage += size;
+                    unindex(id);
+                }
+                case EXPIRE -> {
+                    segment.garbage += size;
+                    expire(timestamp);
+                }
+                case COMPACTED -> {
+                    // The segments before this one were already skipped
+                }
+                default -> throw new IOException("Unknown record type " + buffer.get(body) + " in component log segment " + segment.file + " at position " + position);
+            }
+            position += size;
+        }
+        segment.size = position;
+        return position;
+    }
+
+    private void index(final UUID id, final IndexEntry entry) {
+        final var old = index.put(id, entry);
+        if (old != null) {
+            discard(id, old);
+        }
+        if (entry.temporary) {
+            expiryIndex.add(id, entry.lastUsed);
+        }
+    }
+
+    private void unindex(final UUID id) {
+        final var old = index.remove(id);
+        if (old != null) {
+            discard(id, old);
+        }
+    }
+
+    private void discard(final UUID id, final IndexEntry entry) {
+        entry.segment.garbage += entry.size;
+        if (entry.temporary) {
+            expiryIndex.remove(id, entry.lastUsed);
+        }
+    }
+
+    private void touch(final UUID id, final long lastUsed) {
+        final var entry = index.get(id);
+        if (entry != null) {
+            final long old = entry.lastUsed;
+            entry.lastUsed = lastUsed;
+            if (entry.temporary) {
+                expiryIndex.move(id, old, lastUsed);
+            }
+        }
+    }
+
+    private int expire(final long before) {
+        final int[] removed = new int[1];
+        expiryIndex.expire(before, id -> {
+            final var entry = index.get(id);
+            if (entry == null) return;
+            if (entry.lastUsed < before) {
+                index.remove(id);
+                entry.segment.garbage += entry.size;
+                removed[0]++;
+            } else {
+                // The component was used in the meantime, or shared its bucket with the expiry moment, so index it again
+                expiryIndex.add(id, entry.lastUsed);
+            }
+        });
+        return removed[0];
+    }
+
+    private byte[] encodePut(final Component component, final long lastUsed) {
+        final var feature = component.featureId();
+        final int featureLength = BinaryArgumentCodec.utf8Length(feature);
+        int size = RECORD_HEADER_SIZE + FIXED_BODY_SIZE + 1 + BinaryArgumentCodec.varIntSize(featureLength) + featureLength
+                + BinaryArgumentCodec.varIntSize(component.arguments().size());
+        for (final var argument : component.arguments()) {
+            final int length = BinaryArgumentCodec.utf8Length(argument);
+            size += BinaryArgumentCodec.varIntSize(length) + length;
+        }
+        if (size > config.segmentSize()) {
+            throw new IllegalArgumentException("Component " + component.uuid() + " is too large to be stored in a log segment: " + size + " bytes");
+        }
+
+        final byte[] record = new byte[size];
+        writeFixedBody(record, PUT, component.uuid(), lastUsed);
+        int position = RECORD_HEADER_SIZE + FIXED_BODY_SIZE;
+        record[position++] = (byte) component.lifespan().ordinal();
+        position = BinaryArgumentCodec.writeVarInt(record, position, featureLength);
+        position = BinaryArgumentCodec.writeUtf8(record, position, feature);
+        position = BinaryArgumentCodec.writeVarInt(record, position, component.arguments().size());
+        for (final var argument : component.arguments()) {
+            position = BinaryArgumentCodec.writeVarInt(record, position, BinaryArgumentCodec.utf8Length(argument));
+            position = BinaryArgumentCodec.writeUtf8(record, position, argument);
+        }
+        seal(record);
+        return record;
+    }
+
+    private static byte[] encode(final byte type, final UUID id, final long timestamp) {
+        final byte[] record = new byte[RECORD_HEADER_SIZE + FIXED_BODY_SIZE];
+        writeFixedBody(record, type, id, timestamp);
+        seal(record);
+        return record;
+    }
+
+    private static void writeFixedBody(final byte[] record, final byte type, final UUID id, final long timestamp) {
+        ByteBuffer.wrap(record, RECORD_HEADER_SIZE, FIXED_BODY_SIZE)
+                .put(type)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .putLong(timestamp);
+    }
+
+    /**
+     * Writes the length and checksum of the record.
+     */
+    private static void seal(final byte[] record) {
+        final var crc = new CRC32C();
+        crc.update(record, RECORD_HEADER_SIZE, record.length - RECORD_HEADER_SIZE);
+        ByteBuffer.wrap(record)
+                .putInt(record.length - RECORD_HEADER_SIZE)
+                .putInt((int) crc.getValue());
+    }
+
+    /**
+     * Checks if a segment file starts with the {@link #COMPACTED} marker.
+     */
+    private static boolean isCompacted(final Path file) throws IOException {
+        final var marker = ByteBuffer.allocate(MARKER_SIZE);
+        try (final var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (marker.hasRemaining()) {
+                if (channel.read(marker) < 0) break;
+            }
+        }
+        return !marker.hasRemaining() && marker.getInt(0) == FIXED_BODY_SIZE && marker.get(RECORD_HEADER_SIZE) == COMPACTED
+                && checksum(marker, RECORD_HEADER_SIZE, FIXED_BODY_SIZE) == marker.getInt(4);
+    }
+
+    private static int checksum(final ByteBuffer buffer, final int position, final int length) {
+        final var crc = new CRC32C();
+        crc.update(buffer.slice(position, length));
+        return (int) crc.getValue();
+    }
+
+    private static String readString(final byte[] data, final int[] position) {
+        final int length = BinaryArgumentCodec.readVarInt(data, position);
+        final var string = new String(data, position[0], length, StandardCharsets.UTF_8);
+        position[0] += length;
+        return string;
+    }
+
+    private static String segmentName(final long sequence) {
+        return "%020d%s".formatted(sequence, SEGMENT_EXTENSION);
+    }
+
+    private static void move(final Path source, final Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * A segment of the log. Segments stay mapped until they are garbage collected, so that lookups which
+     * started before a compaction can still read from the segments it deleted.
+     */
+    private static final class Segment {
+        final long sequence;
+        final Path file;
+        final MappedByteBuffer buffer;
+        // Guarded by the lock of the storage
+        int size;
+        long garbage;
+
+        Segment(final long sequence, final Path file, final MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.file = file;
+            this.buffer = buffer;
+        }
+
+        /**
+         * Maps a segment file.
+         *
+         * @param minimumSize the size the file is extended to, if it is smaller, in order to be appended to
+         * @param writable    if the segment will be appended to
+         */
+        static Segment open(final Path file, final long sequence, final int minimumSize, final boolean writable) throws IOException {
+            try (final var channel = writable ? FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE) : FileChannel.open(file, StandardOpenOption.READ)) {
+                final long size = Math.max(channel.size(), minimumSize);
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("Component log segment " + file + " is too large to be mapped: " + size + " bytes");
+                }
+                return new Segment(sequence, file, channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, size));
+            }
+        }
+    }
+
+    private static final class IndexEntry {
+        final Segment segment;
+        final int position;
+        final int size;
+        final boolean temporary;
+        volatile long lastUsed;
+
+        IndexEntry(final Segment segment, final int position, final int size, final boolean temporary, final long lastUsed) {
+            this.segment = segment;
+            this.position = position;
+            this.size = size;
+            this.temporary = temporary;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    /**
+     * The configuration of a {@link LogComponentStorage}.
+     *
+     * @param segmentSize         the size of a log segment file, in bytes. Segment files are sparse, so they only occupy the disk space they use
+     * @param compactionInterval  the interval at which the compactor checks if the log should be compacted, or {@link Duration#ZERO} to only compact manually
+     * @param compactionThreshold the {@link #getGarbageRatio() share of garbage} in the log above which it is compacted
+     * @param syncWrites          if every write should be flushed to the disk before returning. Otherwise, writes survive crashes of the process but
+     *                            not of the operating system
+     */
+    public record Config(int segmentSize, Duration compactionInterval, double compactionThreshold, boolean syncWrites) {
+        public Config {
+            if (segmentSize < 4096) {
+                throw new IllegalArgumentException("The segment size must be at least 4096 bytes!");
+            }
+            if (compactionThreshold <= 0 || compactionThreshold > 1) {
+                throw new IllegalArgumentException("The compaction threshold must be between 0 (exclusive) and 1!");
+            }
+        }
+
+        /**
+         * Creates a configuration with 64 MiB segments, which compacts the log once half of it is garbage, and doesn't sync writes.
+         *
+         * @param compactionInterval the interval at which the compactor checks if the log should be compacted
+         * @return the configuration
+         */
+        public static Config of(final Duration compactionInterval) {
+            return new Config(64 << 20, compactionInterval, 0.5, false);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.matyrobbrt.jdahelper.components.storage;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+import static com.matyrobbrt.jdahelper.components.storage.SqlComponentStorage.LAST_USED_ROW_NAME;
+import static com.matyrobbrt.jdahelper.components.storage.SqlComponentStorage.LIFESPAN_ROW_NAME;
+
+/**
+ * The {@link SqlDialect#MYSQL MySQL and MariaDB} dialect. <br>
+ * Neither supports {@code update ... returning}, so lookups use 2 statements.
+ */
+@ParametersAreNonnullByDefault
+final class MySqlDialect extends GenericSqlDialect {
+
+    @Override
+    public @NotNull String idColumnType() {
+        return "binary(16)";
+    }
+
+    @Override
+    public @NotNull String timestampColumnType() {
+        // MySQL timestamps are limited to 2038, and may be updated automatically
+        return "datetime(3)";
+    }
+
+    @Override
+    public @NotNull Object idParameter(UUID id) {
+        return toBytes(id);
+    }
+
+    @Override
+    public @NotNull UUID readId(ResultSet rs, String column) throws SQLException {
+        return fromBytes(rs.getBytes(column));
+    }
+
+    @Override
+    public @NotNull String deleteLastUsedBeforeLimited(String table) {
+        // MySQL doesn't support limit in subqueries used with in
+        return "delete from %s where %s <= :before and %s = :lifespan limit :limit".formatted(
+                table, LAST_USED_ROW_NAME, LIFESPAN_ROW_NAME);
+    }
+}
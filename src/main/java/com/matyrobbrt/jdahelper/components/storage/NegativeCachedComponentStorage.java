@@ -0,0 +1,174 @@
+package com.matyrobbrt.jdahelper.components.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.matyrobbrt.jdahelper.components.Component;
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link ComponentStorage} which remembers the IDs of components that another storage doesn't have, so that
+ * lookups of those IDs, usually caused by clicks on the buttons of old messages, don't reach the storage again. <br>
+ * Removed components and lookups which miss are added to a bounded cache of dead IDs, and inserted components are removed from it.
+ * Entries also {@link Config#expireAfterWrite() expire}, so that components inserted into the delegate storage by other
+ * processes eventually become visible. <br>
+ * The components written during a {@link Session session} are removed from the dead IDs once it is closed, as lookups from other
+ * threads miss them until the session is committed.
+ */
+@ParametersAreNonnullByDefault
+public class NegativeCachedComponentStorage implements ComponentStorage {
+
+    private final ComponentStorage delegate;
+    private final Cache<UUID, Boolean> deadIds;
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder staleEntries = new LongAdder();
+    private final SessionWrites sessionWrites = new SessionWrites();
+
+    NegativeCachedComponentStorage(final ComponentStorage delegate, final Config config) {
+        this.delegate = delegate;
+        this.deadIds = Caffeine.newBuilder()
+                .maximumSize(config.maximumSize())
+                .expireAfterWrite(config.expireAfterWrite())
+                .build();
+    }
+
+    @Override
+    public void insertComponent(Component component) {
+        delegate.insertComponent(component);
+        sessionWrites.record(component.uuid());
+        revive(component.uuid());
+    }
+
+    @Override
+    public void insertComponents(Collection<Component> components) {
+        delegate.insertComponents(components);
+        for (final var component : components) {
+            sessionWrites.record(component.uuid());
+            revive(component.uuid());
+        }
+    }
+
+    @Override
+    public void removeComponent(UUID id) {
+        delegate.removeComponent(id);
+        // The removal may be rolled back, so it can't be cached as dead after the session
+        sessionWrites.record(id);
+        deadIds.put(id, Boolean.TRUE);
+    }
+
+    @Override
+    public void removeComponentsLastUsedBefore(Instant before) {
+        // We don't know which components were removed, but lookups will add them once they miss
+        delegate.removeComponentsLastUsedBefore(before);
+    }
+
+    @Override
+    public int removeComponentsLastUsedBefore(Instant before, int limit) {
+        return delegate.removeComponentsLastUsedBefore(before, limit);
+    }
+
+    @Override
+    public int removeComponentsByFeature(String featureId) {
+        return delegate.removeComponentsByFeature(featureId);
+    }
+
+    @Override
+    public @NotNull Optional<Component> getComponent(UUID id) {
+        lookups.increment();
+        if (deadIds.getIfPresent(id) != null) {
+            negativeHits.increment();
+            return Optional.empty();
+        }
+        final var component = delegate.getComponent(id);
+        if (component.isEmpty()) {
+            deadIds.put(id, Boolean.TRUE);
+        }
+        return component;
+    }
+
+    @Override
+    public void updateArguments(UUID id, List<String> newArguments) {
+        delegate.updateArguments(id, newArguments);
+    }
+
+    @Override
+    public void setLastUsed(UUID id, Instant lastUsed) {
+        delegate.setLastUsed(id, lastUsed);
+    }
+
+    @Override
+    public void setLastUsed(Map<UUID, Instant> lastUsed) {
+        delegate.setLastUsed(lastUsed);
+    }
+
+    @Override
+    public @NotNull Session openSession() {
+        return sessionWrites.open(delegate.openSession(), deadIds::invalidateAll);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    /**
+     * Gets the statistics of this storage.
+     *
+     * @return the statistics
+     */
+    @NotNull
+    public Stats stats() {
+        return new Stats(lookups.sum(), negativeHits.sum(), staleEntries.sum(), deadIds.estimatedSize());
+    }
+
+    private void revive(final UUID id) {
+        if (deadIds.asMap().remove(id) != null) {
+            staleEntries.increment();
+        }
+    }
+
+    /**
+     * The configuration of a {@link NegativeCachedComponentStorage}.
+     *
+     * @param maximumSize      the maximum amount of dead IDs to remember
+     * @param expireAfterWrite how long a dead ID is remembered for
+     */
+    public record Config(long maximumSize, Duration expireAfterWrite) {
+        public Config {
+            if (maximumSize < 0) {
+                throw new IllegalArgumentException("The maximum size cannot be negative!");
+            }
+        }
+    }
+
+    /**
+     * Statistics about a {@link NegativeCachedComponentStorage}.
+     *
+     * @param lookups      the amount of lookups
+     * @param negativeHits the amount of lookups which were answered from the cache of dead IDs, without querying the delegate storage
+     * @param staleEntries the amount of dead IDs that turned out to be alive, because a component with that ID was inserted.
+     *                     These are the false positives of the cache, which would have wrongly answered lookups until they were inserted
+     * @param size         the approximate amount of dead IDs in the cache
+     */
+    public record Stats(long lookups, long negativeHits, long staleEntries, long size) {
+
+        /**
+         * Gets the ratio of lookups that were answered from the cache of dead IDs.
+         *
+         * @return the negative hit rate, or {@code 0} if no lookups were made
+         */
+        public double negativeHitRate() {
+            return lookups == 0 ? 0 : (double) negativeHits / lookups;
+        }
+    }
+}
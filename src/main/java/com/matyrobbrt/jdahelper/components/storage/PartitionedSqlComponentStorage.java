@@ -0,0 +1,455 @@
+package com.matyrobbrt.jdahelper.components.storage;
+
+import com.matyrobbrt.jdahelper.components.Component;
+import com.matyrobbrt.jdahelper.components.ComponentIdGenerator;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.JdbiException;
+import org.jdbi.v3.core.mapper.RowMapper;
+import org.jdbi.v3.core.statement.SqlStatement;
+import org.jdbi.v3.core.statement.StatementException;
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static com.matyrobbrt.jdahelper.components.storage.SqlComponentStorage.ARGUMENTS_ROW_NAME;
+import static com.matyrobbrt.jdahelper.components.storage.SqlComponentStorage.FEATURE_ROW_NAME;
+import static com.matyrobbrt.jdahelper.components.storage.SqlComponentStorage.ID_ROW_NAME;
+import static com.matyrobbrt.jdahelper.components.storage.SqlComponentStorage.LAST_USED_ROW_NAME;
+import static com.matyrobbrt.jdahelper.components.storage.SqlComponentStorage.LIFESPAN_ROW_NAME;
+
+/**
+ * A SQL {@link ComponentStorage} which splits {@link Component.Lifespan#TEMPORARY temporary} components into tables by their last usage time,
+ * so that expiring components drops whole tables instead of deleting them row by row. <br>
+ * Each partition covers a {@link Builder#partitionPeriod(Duration) period} of time (a day by default), and is stored in a
+ * {@code <table>_p<index>} table. {@link Component.Lifespan#PERMANENT Permanent} components are stored in a separate {@code <table>_permanent} table,
+ * and the known partitions are tracked in a {@code <table>_partitions} table. All the tables are created by the storage.
+ * <p>
+ * Using a component moves it to the partition of the current period, if it isn't already there, so that the partition of a component
+ * always covers its last usage time. As a result, {@link #removeComponentsLastUsedBefore(Instant)} works with the granularity of
+ * a partition: it drops the partitions which end before the given moment, so components may outlive it by up to a period. <br>
+ * Lookups query all the partitions in a single {@code union all} query. When the ID of the component is {@link ComponentIdGenerator#TIME_ORDERED time-ordered},
+ * partitions older than the one the component was created in are skipped, as components never move to them. <br>
+ * Dropping partitions waits for the operations which are using them to finish, and blocks new ones until the partitions are gone.
+ */
+@ParametersAreNonnullByDefault
+public class PartitionedSqlComponentStorage implements ComponentStorage {
+
+    private static final long PERMANENT = -1;
+    private static final String PARTITION_COLUMN = "part_index";
+
+    private final Jdbi jdbi;
+    private final String tableName;
+    private final long partitionMillis;
+    private final SqlDialect dialect;
+    @Nullable
+    private final ArgumentCodec argumentCodec;
+    private final RowMapper<Located> locatedMapper;
+    private final NavigableSet<Long> partitions = new ConcurrentSkipListSet<>();
+    private final Map<Long, SqlComponentStorage.Statements> statements = new ConcurrentHashMap<>();
+    /**
+     * Held for reading by the operations which query the {@link #partitions}, and for writing while partitions are dropped.
+     */
+    private final ReadWriteLock partitionsLock = new ReentrantReadWriteLock();
+
+    PartitionedSqlComponentStorage(final Builder builder) {
+        this.jdbi = builder.jdbi;
+        this.tableName = builder.tableName;
+        this.partitionMillis = builder.partitionPeriod.toMillis();
+        this.dialect = builder.dialect;
+        this.argumentCodec = builder.argumentCodec;
+        this.locatedMapper = (rs, ctx) -> new Located(new Component(rs.getString(FEATURE_ROW_NAME),
+                dialect.readId(rs, ID_ROW_NAME),
+                SqlComponentStorage.readArguments(argumentCodec, rs),
+                Component.Lifespan.valueOf(rs.getString(LIFESPAN_ROW_NAME))), rs.getLong(PARTITION_COLUMN));
+
+        jdbi.useHandle(handle -> {
+            SqlComponentSchema.createTable(handle, tableOf(PERMANENT), dialect, argumentCodec != null);
+            handle.execute("create table if not exists %s (%s bigint not null primary key)".formatted(registryTable(), PARTITION_COLUMN));
+            partitions.addAll(handle.createQuery("select %s from %s".formatted(PARTITION_COLUMN, registryTable()))
+                    .mapTo(Long.class)
+                    .list());
+        });
+    }
+
+    @Override
+    public void insertComponent(Component component) {
+        insertComponents(List.of(component));
+    }
+
+    @Override
+    public void insertComponents(Collection<Component> components) {
+        if (components.isEmpty()) return;
+        final var now = Instant.now();
+        final long current = partitionOf(now.toEpochMilli());
+        final Map<Long, List<Component>> byPartition = new HashMap<>();
+        for (final var component : components) {
+            byPartition.computeIfAbsent(partitionOf(component, current), k -> new ArrayList<>()).add(component);
+        }
+        usingPartitions(() -> {
+            byPartition.keySet().forEach(this::ensurePartition);
+            jdbi.useTransaction(handle -> byPartition.forEach((partition, inPartition) -> {
+                final var batch = handle.prepareBatch(statementsOf(partition).insert());
+                for (final var component : inPartition) {
+                    bindInsert(batch, component, now).add();
+                }
+                batch.execute();
+            }));
+            return null;
+        });
+    }
+
+    @Override
+    public void removeComponent(UUID id) {
+        usingPartitions(() -> {
+            jdbi.useHandle(handle -> locate(handle, id).ifPresent(located -> handle.createUpdate(statementsOf(located.partition()).delete())
+                    .bind("id", dialect.idParameter(id))
+                    .execute()));
+            return null;
+        });
+    }
+
+    /**
+     * Drops the partitions which end before the given moment. <br>
+     * Components of the partition containing the moment are kept, even if they were last used before it.
+     *
+     * @param before the last moment when components could have been used in order to "survive" this operation
+     */
+    @Override
+    public void removeComponentsLastUsedBefore(Instant before) {
+        // The partition of the moment ends after it, so only the ones before it can be dropped
+        final long lastExpired = partitionOf(before.toEpochMilli()) - 1;
+        if (partitions.headSet(lastExpired, true).isEmpty()) return;
+        partitionsLock.writeLock().lock();
+        try {
+            for (final long partition : List.copyOf(partitions.headSet(lastExpired, true))) {
+                // Some databases commit DDL statements immediately, so the partition is unregistered first, letting the
+                // other storages sharing the tables tell that a missing table was dropped
+                jdbi.useTransaction(handle -> {
+                    handle.execute("delete from %s where %s = ?".formatted(registryTable(), PARTITION_COLUMN), partition);
+                    handle.execute("drop table if exists " + tableOf(partition));
+                });
+                partitions.remove(partition);
+                statements.remove(partition);
+            }
+        } finally {
+            partitionsLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int removeComponentsByFeature(String featureId) {
+        return usingPartitions(() -> jdbi.inTransaction(handle -> {
+            int removed = handle.createUpdate(statementsOf(PERMANENT).deleteFeature())
+                    .bind("feature", featureId)
+                    .execute();
+            for (final long partition : partitions) {
+                removed += handle.createUpdate(statementsOf(partition).deleteFeature())
+                        .bind("feature", featureId)
+                        .execute();
+            }
+            return removed;
+        }));
+    }
+
+    @Override
+    public @NotNull Optional<Component> getComponent(UUID id) {
+        final var now = Instant.now();
+        return usingPartitions(() -> {
+            ensurePartition(partitionOf(now.toEpochMilli()));
+            return jdbi.inTransaction(handle -> {
+                final var located = locate(handle, id);
+                located.ifPresent(it -> touch(handle, it, now));
+                return located.map(Located::component);
+            });
+        });
+    }
+
+    @Override
+    public void updateArguments(UUID id, List<String> newArguments) {
+        final var now = Instant.now();
+        usingPartitions(() -> {
+            ensurePartition(partitionOf(now.toEpochMilli()));
+            jdbi.useTransaction(handle -> locate(handle, id).ifPresent(located -> {
+                handle.createUpdate(statementsOf(located.partition()).updateArguments())
+                        .bind("args", SqlComponentStorage.writeArguments(argumentCodec, newArguments))
+                        .bind("id", dialect.idParameter(id))
+                        .bind(LAST_USED_ROW_NAME, now)
+                        .execute();
+                // Updating the arguments counts as a usage, so the component may need to move to the current partition
+                final var old = located.component();
+                touch(handle, new Located(new Component(old.featureId(), old.uuid(), newArguments, old.lifespan()), located.partition()), now);
+            }));
+            return null;
+        });
+    }
+
+    @Override
+    public void setLastUsed(UUID id, Instant lastUsed) {
+        usingPartitions(() -> {
+            ensurePartition(partitionOf(lastUsed.toEpochMilli()));
+            jdbi.useTransaction(handle -> locate(handle, id).ifPresent(located -> touch(handle, located, lastUsed)));
+            return null;
+        });
+    }
+
+    /**
+     * Gets the indexes of the partitions of temporary components. A partition with the index {@code i}
+     * covers the components last used between {@code i * period} and {@code (i + 1) * period} milliseconds since the epoch.
+     *
+     * @return the indexes of the partitions, in ascending order
+     */
+    @NotNull
+    public List<Long> getPartitions() {
+        return List.copyOf(partitions);
+    }
+
+    /**
+     * Runs an operation which uses the partitions, preventing them from being dropped while it runs. <br>
+     * Other storages sharing the tables may still drop partitions, in which case the operation fails on a missing table.
+     * It is then retried with the partitions which are still registered, for as long as the failures are caused by dropped partitions.
+     */
+    private <T> T usingPartitions(final Supplier<T> operation) {
+        partitionsLock.readLock().lock();
+        try {
+            while (true) {
+                // Other threads may reload the partitions while the operation runs, so it may have used the ones known before or after it
+                final Set<Long> used = new HashSet<>(partitions);
+                try {
+                    return operation.get();
+                } catch (JdbiException e) {
+                    used.addAll(partitions);
+                    if (!reloadPartitions(used)) {
+                        throw e;
+                    }
+                }
+            }
+        } finally {
+            partitionsLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reloads the partitions from the registry.
+     *
+     * @param known the partitions known before reloading
+     * @return if any of the {@code known} partitions was dropped
+     */
+    private boolean reloadPartitions(final Collection<Long> known) {
+        final var registered = jdbi.withHandle(handle -> handle.createQuery("select %s from %s".formatted(PARTITION_COLUMN, registryTable()))
+                .mapTo(Long.class)
+                .collect(Collectors.toSet()));
+        partitions.addAll(registered);
+        for (final long partition : partitions) {
+            if (!registered.contains(partition)) {
+                partitions.remove(partition);
+                statements.remove(partition);
+            }
+        }
+        return !registered.containsAll(known);
+    }
+
+    /**
+     * Gets the partition a new component is inserted in. <br>
+     * Temporary components are inserted in the {@code current} partition, unless their ID was created in a later one, as lookups skip
+     * the partitions older than the creation of the component. This happens when the {@link ComponentIdGenerator#TIME_ORDERED generator}
+     * borrows timestamps from the future, or when the clock of the process creating the ID is ahead.
+     */
+    private long partitionOf(final Component component, final long current) {
+        if (component.lifespan() == Component.Lifespan.PERMANENT) {
+            return PERMANENT;
+        }
+        final var created = ComponentIdGenerator.timestampOf(component.uuid());
+        return created == null ? current : Math.max(current, partitionOf(created.toEpochMilli()));
+    }
+
+    private void touch(final Handle handle, final Located located, final Instant lastUsed) {
+        final var component = located.component();
+        long target = located.partition() == PERMANENT ? PERMANENT : partitionOf(lastUsed.toEpochMilli());
+        final var created = ComponentIdGenerator.timestampOf(component.uuid());
+        if (target != PERMANENT && created != null) {
+            // Lookups skip the partitions older than the creation of the component
+            target = Math.max(target, partitionOf(created.toEpochMilli()));
+        }
+
+        if (target == located.partition()) {
+            handle.createUpdate(statementsOf(target).updateLastUsed())
+                    .bind(LAST_USED_ROW_NAME, lastUsed)
+                    .bind("id", dialect.idParameter(component.uuid()))
+                    .execute();
+        } else {
+            bindInsert(handle.createUpdate(statementsOf(target).insert()), component, lastUsed).execute();
+            handle.createUpdate(statementsOf(located.partition()).delete())
+                    .bind("id", dialect.idParameter(component.uuid()))
+                    .execute();
+        }
+    }
+
+    private Optional<Located> locate(final Handle handle, final UUID id) {
+        final var created = ComponentIdGenerator.timestampOf(id);
+        final var candidates = created == null ? partitions : partitions.tailSet(partitionOf(created.toEpochMilli()), true);
+        final var query = new StringBuilder(selectFrom(PERMANENT));
+        for (final long partition : candidates) {
+            query.append(" union all ").append(selectFrom(partition));
+        }
+        return handle.createQuery(query.toString())
+                .bind("id", dialect.idParameter(id))
+                .map(locatedMapper)
+                .findFirst();
+    }
+
+    private String selectFrom(final long partition) {
+        return "select %s, %s, %s, %s, %s as %s from %s where %s = :id".formatted(
+                FEATURE_ROW_NAME, ID_ROW_NAME, ARGUMENTS_ROW_NAME, LIFESPAN_ROW_NAME, partition, PARTITION_COLUMN, tableOf(partition), ID_ROW_NAME);
+    }
+
+    private <T extends SqlStatement<T>> T bindInsert(final T statement, final Component component, final Instant lastUsed) {
+        return statement.bind(FEATURE_ROW_NAME, component.featureId())
+                .bind(ID_ROW_NAME, dialect.idParameter(component.uuid()))
+                .bind(ARGUMENTS_ROW_NAME, SqlComponentStorage.writeArguments(argumentCodec, component.arguments()))
+                .bind(LIFESPAN_ROW_NAME, component.lifespan().toString())
+                .bind(LAST_USED_ROW_NAME, lastUsed);
+    }
+
+    /**
+     * Creates the table of a partition if it doesn't exist. <br>
+     * This is done before opening the transactions which may write to the partition, as some databases can't create tables in transactions,
+     * and SQLite would deadlock on a separate connection creating it while the transaction holds a read lock. <br>
+     * Other threads or processes may be registering the same partition concurrently, so losing the race on the registry is not an error.
+     */
+    private void ensurePartition(final long partition) {
+        if (partition != PERMANENT && !partitions.contains(partition)) {
+            jdbi.useHandle(creator -> {
+                SqlComponentSchema.createTable(creator, tableOf(partition), dialect, argumentCodec != null);
+                if (!isRegistered(creator, partition)) {
+                    try {
+                        creator.execute("insert into %s (%s) values (?)".formatted(registryTable(), PARTITION_COLUMN), partition);
+                    } catch (StatementException e) {
+                        if (!isRegistered(creator, partition)) {
+                            throw e;
+                        }
+                    }
+                }
+            });
+            partitions.add(partition);
+        }
+    }
+
+    private boolean isRegistered(final Handle handle, final long partition) {
+        return handle.createQuery("select count(*) from %s where %s = ?".formatted(registryTable(), PARTITION_COLUMN))
+                .bind(0, partition)
+                .mapTo(Integer.class)
+                .one() > 0;
+    }
+
+    private SqlComponentStorage.Statements statementsOf(final long partition) {
+        return statements.computeIfAbsent(partition, key -> SqlComponentStorage.Statements.of(tableOf(key), dialect));
+    }
+
+    private long partitionOf(final long millis) {
+        return Math.floorDiv(millis, partitionMillis);
+    }
+
+    private String tableOf(final long partition) {
+        return partition == PERMANENT ? tableName + "_permanent" : tableName + "_p" + partition;
+    }
+
+    private String registryTable() {
+        return tableName + "_partitions";
+    }
+
+    private record Located(Component component, long partition) {
+    }
+
+    /**
+     * Creates a builder for a {@link PartitionedSqlComponentStorage}.
+     *
+     * @param jdbi      the {@link Jdbi} instance to use for accessing the database
+     * @param tableName the prefix of the names of the tables that will store components
+     * @return the builder
+     */
+    @NotNull
+    public static Builder builder(final Jdbi jdbi, final String tableName) {
+        return new Builder(jdbi, tableName);
+    }
+
+    public static final class Builder {
+        private final Jdbi jdbi;
+        private final String tableName;
+        private Duration partitionPeriod = Duration.ofDays(1);
+        private SqlDialect dialect = SqlDialect.GENERIC;
+        @Nullable
+        private ArgumentCodec argumentCodec;
+
+        Builder(final Jdbi jdbi, final String tableName) {
+            this.jdbi = jdbi;
+            this.tableName = tableName;
+        }
+
+        /**
+         * Sets the period of time covered by a partition. Defaults to a day. <br>
+         * The period should be a fraction of the maximum age of components, as expired components may outlive it by up to a period.
+         *
+         * @param partitionPeriod the period covered by a partition
+         * @return the builder instance
+         */
+        public Builder partitionPeriod(final Duration partitionPeriod) {
+            if (partitionPeriod.toMillis() < 1) {
+                throw new IllegalArgumentException("The partition period must be positive!");
+            }
+            this.partitionPeriod = partitionPeriod;
+            return this;
+        }
+
+        /**
+         * Sets the {@link SqlDialect dialect} of the database. Defaults to {@link SqlDialect#GENERIC}.
+         *
+         * @param dialect the dialect
+         * @return the builder instance
+         */
+        public Builder dialect(final SqlDialect dialect) {
+            this.dialect = dialect;
+            return this;
+        }
+
+        /**
+         * Makes the storage write the arguments of components as binary data, using the given {@code codec}.
+         *
+         * @param codec the codec used for arguments, usually {@link ArgumentCodec#BINARY}
+         * @return the builder instance
+         * @see SqlComponentStorage.Builder#argumentCodec(ArgumentCodec)
+         */
+        public Builder argumentCodec(@Nullable final ArgumentCodec codec) {
+            this.argumentCodec = codec;
+            return this;
+        }
+
+        /**
+         * Builds the storage, creating its tables if they don't exist.
+         *
+         * @return the built storage
+         */
+        public PartitionedSqlComponentStorage build() {
+            return new PartitionedSqlComponentStorage(this);
+        }
+    }
+}
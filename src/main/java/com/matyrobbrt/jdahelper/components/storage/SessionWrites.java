@@ -0,0 +1,77 @@
+package com.matyrobbrt.jdahelper.components.storage;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Tracks the components written during the {@link ComponentStorage.Session sessions} opened through a caching decorator. <br>
+ * The writes of a session are only committed by the delegate storage when the session is closed, and may be rolled back instead,
+ * so decorators must not serve them to other threads in the meantime. Instead, they invalidate the components written during a session,
+ * bypass their cache when the components are looked up on the thread of the session, and invalidate them again once the session is closed.
+ */
+@ParametersAreNonnullByDefault
+final class SessionWrites {
+    private final ThreadLocal<Set<UUID>> written = new ThreadLocal<>();
+
+    /**
+     * Wraps a session of the delegate storage, tracking the writes made on the current thread until it is closed.
+     *
+     * @param delegate the session of the delegate storage
+     * @param onClose  a consumer called with the IDs of the components written during the session, once it was closed, even if it failed to commit
+     * @return the wrapped session
+     */
+    @NotNull
+    ComponentStorage.Session open(final ComponentStorage.Session delegate, final Consumer<Set<UUID>> onClose) {
+        if (written.get() != null) {
+            // The delegate session is a no-op as well, as a session is already open on this thread
+            return delegate;
+        }
+        final Set<UUID> ids = new HashSet<>();
+        written.set(ids);
+        return new ComponentStorage.Session() {
+            @Override
+            public void rollback() {
+                delegate.rollback();
+            }
+
+            @Override
+            public void close() {
+                try {
+                    delegate.close();
+                } finally {
+                    written.remove();
+                    onClose.accept(ids);
+                }
+            }
+        };
+    }
+
+    /**
+     * Records a write of the component with the given {@code id}, if a session is open on the current thread.
+     *
+     * @param id the ID of the written component
+     * @return if a session is open, in which case the write must not be cached
+     */
+    boolean record(final UUID id) {
+        final var ids = written.get();
+        if (ids == null) return false;
+        ids.add(id);
+        return true;
+    }
+
+    /**
+     * Checks if the component with the given {@code id} was written during the session open on the current thread.
+     *
+     * @param id the ID of the component
+     * @return if the component was written during the session, in which case it must be looked up in the delegate storage
+     */
+    boolean isWritten(final UUID id) {
+        final var ids = written.get();
+        return ids != null && ids.contains(id);
+    }
+}
@@ -0,0 +1,210 @@
+package com.matyrobbrt.jdahelper.components.storage;
+
+import com.matyrobbrt.jdahelper.components.Component;
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * A {@link ComponentStorage} which coalesces concurrent lookups of the same component into a single lookup of another storage. <br>
+ * While a lookup is in flight, other lookups of the same ID wait for it and share its result, instead of querying the storage again.
+ * Nothing is cached once the lookup completes. <br>
+ * Writes to a component detach its in-flight lookup, so lookups made after a write never receive a result read before it. <br>
+ * To that end, the IDs are split into stripes, each with a state counting the writes to its IDs which started and completed.
+ * A lookup only joins an in-flight lookup which started with the same state, and while no write to the stripe is running;
+ * lookups made during a write query the storage on their own. A write may therefore also stop the lookups of other IDs in its stripe
+ * from being coalesced with the ones made before it.
+ */
+@ParametersAreNonnullByDefault
+public class SingleFlightComponentStorage implements ComponentStorage {
+
+    private static final int STRIPES = 64;
+    /**
+     * The low half of a stripe state counts the running writes, and the high half the completed ones.
+     */
+    private static final long RUNNING_WRITE = 1;
+    private static final long COMPLETED_WRITE = 1L << 32;
+    private static final long RUNNING_WRITES_MASK = COMPLETED_WRITE - 1;
+
+    private final ComponentStorage delegate;
+    private final Map<UUID, Flight> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLongArray stripes = new AtomicLongArray(STRIPES);
+    private final LongAdder coalescedCalls = new LongAdder();
+
+    SingleFlightComponentStorage(final ComponentStorage delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public @NotNull Optional<Component> getComponent(UUID id) {
+        Flight flight;
+        while (true) {
+            final long state = stripes.get(stripe(id));
+            if ((state & RUNNING_WRITES_MASK) != 0) {
+                // The write may have committed already, so neither join a lookup which may have read before it, nor let others join this one
+                return delegate.getComponent(id);
+            }
+
+            final var existing = inFlight.get(id);
+            if (existing != null && existing.state() == state) {
+                coalescedCalls.increment();
+                try {
+                    return existing.result().join();
+                } catch (CompletionException exception) {
+                    if (exception.getCause() instanceof RuntimeException runtime) {
+                        throw runtime;
+                    }
+                    throw exception;
+                }
+            }
+
+            flight = new Flight(state, new CompletableFuture<>());
+            if (existing == null ? inFlight.putIfAbsent(id, flight) == null : inFlight.replace(id, existing, flight)) {
+                break;
+            }
+        }
+
+        try {
+            final var component = delegate.getComponent(id);
+            flight.result().complete(component);
+            return component;
+        } catch (RuntimeException exception) {
+            flight.result().completeExceptionally(exception);
+            throw exception;
+        } finally {
+            inFlight.remove(id, flight);
+        }
+    }
+
+    @Override
+    public void insertComponent(Component component) {
+        write(component.uuid(), () -> delegate.insertComponent(component));
+    }
+
+    @Override
+    public void insertComponents(Collection<Component> components) {
+        final var ids = components.stream().map(Component::uuid).toList();
+        ids.forEach(id -> stripes.addAndGet(stripe(id), RUNNING_WRITE));
+        try {
+            delegate.insertComponents(components);
+        } finally {
+            ids.forEach(this::completeWrite);
+        }
+    }
+
+    @Override
+    public void removeComponent(UUID id) {
+        write(id, () -> delegate.removeComponent(id));
+    }
+
+    @Override
+    public void removeComponentsLastUsedBefore(Instant before) {
+        writeAll(() -> {
+            delegate.removeComponentsLastUsedBefore(before);
+            return 0;
+        });
+    }
+
+    @Override
+    public int removeComponentsLastUsedBefore(Instant before, int limit) {
+        return writeAll(() -> delegate.removeComponentsLastUsedBefore(before, limit));
+    }
+
+    @Override
+    public int removeComponentsByFeature(String featureId) {
+        return writeAll(() -> delegate.removeComponentsByFeature(featureId));
+    }
+
+    @Override
+    public void updateArguments(UUID id, List<String> newArguments) {
+        write(id, () -> delegate.updateArguments(id, newArguments));
+    }
+
+    @Override
+    public void setLastUsed(UUID id, Instant lastUsed) {
+        delegate.setLastUsed(id, lastUsed);
+    }
+
+    @Override
+    public void setLastUsed(Map<UUID, Instant> lastUsed) {
+        delegate.setLastUsed(lastUsed);
+    }
+
+    @Override
+    public @NotNull Session openSession() {
+        return delegate.openSession();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    /**
+     * Runs a write to a component. Lookups of the component don't join the lookups which started before the write completed.
+     */
+    private void write(final UUID id, final Runnable write) {
+        stripes.addAndGet(stripe(id), RUNNING_WRITE);
+        try {
+            write.run();
+        } finally {
+            completeWrite(id);
+        }
+    }
+
+    private void completeWrite(final UUID id) {
+        stripes.addAndGet(stripe(id), COMPLETED_WRITE - RUNNING_WRITE);
+        inFlight.remove(id);
+    }
+
+    /**
+     * Runs a write which may affect any component.
+     */
+    private int writeAll(final IntSupplier write) {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes.addAndGet(i, RUNNING_WRITE);
+        }
+        try {
+            return write.getAsInt();
+        } finally {
+            for (int i = 0; i < STRIPES; i++) {
+                stripes.addAndGet(i, COMPLETED_WRITE - RUNNING_WRITE);
+            }
+            inFlight.clear();
+        }
+    }
+
+    private static int stripe(final UUID id) {
+        return id.hashCode() & (STRIPES - 1);
+    }
+
+    /**
+     * Gets the amount of lookups which were coalesced into another in-flight lookup, instead of querying the delegate storage.
+     *
+     * @return the amount of coalesced lookups
+     */
+    public long getCoalescedCalls() {
+        return coalescedCalls.sum();
+    }
+
+    /**
+     * A lookup in flight.
+     *
+     * @param state  the state of the stripe of the component when the lookup started
+     * @param result the result of the lookup
+     */
+    private record Flight(long state, CompletableFuture<Optional<Component>> result) {
+    }
+}
@@ -0,0 +1,205 @@
+package com.matyrobbrt.jdahelper.components.storage;
+
+import org.jdbi.v3.core.Handle;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static com.matyrobbrt.jdahelper.components.storage.SqlComponentStorage.ARGUMENTS_ROW_NAME;
+import static com.matyrobbrt.jdahelper.components.storage.SqlComponentStorage.FEATURE_ROW_NAME;
+import static com.matyrobbrt.jdahelper.components.storage.SqlComponentStorage.ID_ROW_NAME;
+import static com.matyrobbrt.jdahelper.components.storage.SqlComponentStorage.LAST_USED_ROW_NAME;
+import static com.matyrobbrt.jdahelper.components.storage.SqlComponentStorage.LIFESPAN_ROW_NAME;
+
+/**
+ * Manages the schema of the table of a {@link SqlComponentStorage}. <br>
+ * The schema is upgraded using versioned migrations, whose version is tracked in a {@code <table>_schema_version} table.
+ * Each migration runs in its own transaction, and migrations that were already applied are skipped.
+ * <ol>
+ *     <li>creates the table, if it doesn't exist, with a primary key on the {@code id} column, using the column types of the {@link SqlDialect dialect}</li>
+ *     <li>indexes the {@code id} column of tables created before the storage managed them, which usually have a primary key on {@code (feature, id)}</li>
+ *     <li>creates the {@code (lifespan, last_used)} index used by expiry sweeps</li>
+ * </ol>
+ */
+@ParametersAreNonnullByDefault
+final class SqlComponentSchema {
+
+    /**
+     * The version of the schema after all the migrations were applied.
+     */
+    static final int VERSION = 3;
+
+    private static final List<String> ID_INDEX = List.of(ID_ROW_NAME);
+    private static final List<String> EXPIRY_INDEX = List.of(LIFESPAN_ROW_NAME, LAST_USED_ROW_NAME);
+
+    private SqlComponentSchema() {
+    }
+
+    /**
+     * Applies the migrations that weren't applied to the table yet.
+     *
+     * @param handle          the handle to run the migrations with
+     * @param table           the name of the table
+     * @param dialect         the dialect, which decides the column types
+     * @param binaryArguments if the arguments column should be created as a binary column
+     */
+    static void migrate(final Handle handle, final String table, final SqlDialect dialect, final boolean binaryArguments) {
+        final var versionTable = table + "_schema_version";
+        handle.execute("create table if not exists %s (version integer not null)".formatted(versionTable));
+        final int current = handle.createQuery("select max(version) from %s".formatted(versionTable))
+                .mapTo(Integer.class)
+                .findOne()
+                .orElse(0);
+
+        for (int version = current + 1; version <= VERSION; version++) {
+            final int target = version;
+            handle.useTransaction(transaction -> {
+                migrateTo(transaction, table, dialect, binaryArguments, target);
+                transaction.execute("insert into %s (version) values (?)".formatted(versionTable), target);
+            });
+        }
+    }
+
+    private static void migrateTo(final Handle handle, final String table, final SqlDialect dialect, final boolean binaryArguments, final int version) {
+        switch (version) {
+            case 1 -> createTable(handle, table, dialect, binaryArguments);
+            case 2 -> {
+                if (!hasIndex(handle, table, ID_INDEX)) {
+                    handle.execute("create index %s_id_index on %s (%s)".formatted(table, table, ID_ROW_NAME));
+                }
+            }
+            case 3 -> {
+                if (!hasIndex(handle, table, EXPIRY_INDEX)) {
+                    handle.execute("create index %s_expiry_index on %s (%s, %s)".formatted(table, table, LIFESPAN_ROW_NAME, LAST_USED_ROW_NAME));
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown schema version: " + version);
+        }
+    }
+
+    /**
+     * Creates a table for components, if it doesn't exist, with a primary key on the {@code id} column.
+     *
+     * @param handle          the handle to create the table with
+     * @param table           the name of the table
+     * @param dialect         the dialect, which decides the column types
+     * @param binaryArguments if the arguments column should be created as a binary column
+     */
+    static void createTable(final Handle handle, final String table, final SqlDialect dialect, final boolean binaryArguments) {
+        handle.execute("""
+                create table if not exists %s
+                (
+                    %s varchar(255) not null,
+                    %s %s not null primary key,
+                    %s %s not null,
+                    %s varchar(16) not null,
+                    %s %s not null
+                )""".formatted(table,
+                FEATURE_ROW_NAME,
+                ID_ROW_NAME, dialect.idColumnType(),
+                ARGUMENTS_ROW_NAME, binaryArguments ? dialect.binaryColumnType() : "text",
+                LIFESPAN_ROW_NAME,
+                LAST_USED_ROW_NAME, dialect.timestampColumnType()));
+    }
+
+    /**
+     * Checks that the table exists, has all the columns used by the storage, and the indexes needed by lookups and expiry sweeps.
+     *
+     * @param handle the handle to check the table with
+     * @param table  the name of the table
+     * @throws IllegalStateException if the table is missing, or it is missing a column or an index
+     */
+    static void validate(final Handle handle, final String table) {
+        try {
+            final var metadata = handle.getConnection().getMetaData();
+            final var actualName = findTable(metadata, table);
+            if (actualName == null) {
+                throw new IllegalStateException("Component table '" + table + "' does not exist");
+            }
+
+            final Set<String> columns = new HashSet<>();
+            try (final var rs = metadata.getColumns(null, null, actualName, null)) {
+                while (rs.next()) {
+                    columns.add(rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+                }
+            }
+            for (final var column : List.of(FEATURE_ROW_NAME, ID_ROW_NAME, ARGUMENTS_ROW_NAME, LIFESPAN_ROW_NAME, LAST_USED_ROW_NAME)) {
+                if (!columns.contains(column)) {
+                    throw new IllegalStateException("Component table '" + table + "' is missing column '" + column + "'");
+                }
+            }
+
+            if (!hasIndex(handle, table, ID_INDEX)) {
+                throw new IllegalStateException("Component table '" + table + "' has no index on (" + ID_ROW_NAME + "), lookups will scan the whole table");
+            }
+            if (!hasIndex(handle, table, EXPIRY_INDEX)) {
+                throw new IllegalStateException("Component table '" + table + "' has no index on (" + String.join(", ", EXPIRY_INDEX) + "), expiry sweeps will scan the whole table");
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not validate component table '" + table + "'", e);
+        }
+    }
+
+    /**
+     * Checks if the table has an index, or primary key, whose leading columns are the given {@code columns}.
+     */
+    private static boolean hasIndex(final Handle handle, final String table, final List<String> columns) {
+        final Map<String, Map<Integer, String>> indexes = new TreeMap<>();
+        try {
+            final var metadata = handle.getConnection().getMetaData();
+            final var actualName = findTable(metadata, table);
+            if (actualName == null) {
+                return false;
+            }
+            try (final var rs = metadata.getPrimaryKeys(null, null, actualName)) {
+                collectColumns(rs, "KEY_SEQ", indexes, "primary key");
+            }
+            try (final var rs = metadata.getIndexInfo(null, null, actualName, false, true)) {
+                collectColumns(rs, "ORDINAL_POSITION", indexes, null);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not read the indexes of component table '" + table + "'", e);
+        }
+        for (final var index : indexes.values()) {
+            final var indexColumns = new ArrayList<>(index.values());
+            if (indexColumns.size() >= columns.size() && indexColumns.subList(0, columns.size()).equals(columns)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void collectColumns(final ResultSet rs, final String positionColumn, final Map<String, Map<Integer, String>> indexes, @Nullable final String fixedName) throws SQLException {
+        while (rs.next()) {
+            final var column = rs.getString("COLUMN_NAME");
+            if (column == null) continue;
+            final var name = fixedName == null ? String.valueOf(rs.getString("INDEX_NAME")) : fixedName;
+            indexes.computeIfAbsent(name, k -> new TreeMap<>()).put(rs.getInt(positionColumn), column.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Finds the name of the table as stored by the database, which may have changed its case.
+     */
+    @Nullable
+    private static String findTable(final DatabaseMetaData metadata, final String table) throws SQLException {
+        for (final var candidate : new String[] {table, table.toUpperCase(Locale.ROOT), table.toLowerCase(Locale.ROOT)}) {
+            try (final var rs = metadata.getTables(null, null, candidate, null)) {
+                if (rs.next()) {
+                    return rs.getString("TABLE_NAME");
+                }
+            }
+        }
+        return null;
+    }
+}
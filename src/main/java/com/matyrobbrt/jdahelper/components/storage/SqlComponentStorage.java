@@ -1,30 +1,47 @@
 package com.matyrobbrt.jdahelper.components.storage;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
 import com.matyrobbrt.jdahelper.components.Component;
+import org.jdbi.v3.core.Handle;
+import org.jdbi.v3.core.HandleCallback;
+import org.jdbi.v3.core.HandleConsumer;
 import org.jdbi.v3.core.Jdbi;
 import org.jdbi.v3.core.argument.AbstractArgumentFactory;
 import org.jdbi.v3.core.argument.Argument;
 import org.jdbi.v3.core.argument.ArgumentFactory;
 import org.jdbi.v3.core.config.ConfigRegistry;
 import org.jdbi.v3.core.generic.GenericTypes;
+import org.jdbi.v3.core.mapper.RowMapper;
 import org.jdbi.v3.sqlobject.SqlObjectPlugin;
 import org.jdbi.v3.sqlobject.customizer.TimestampedConfig;
 import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import java.lang.reflect.Type;
+import java.sql.Blob;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Types;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @ParametersAreNonnullByDefault
 public class SqlComponentStorage implements ComponentStorage {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SqlComponentStorage.class);
 
     public static final String FEATURE_ROW_NAME = "feature";
     public static final String ID_ROW_NAME = "id";
@@ -32,96 +49,499 @@ public class SqlComponentStorage implements ComponentStorage {
     public static final String LIFESPAN_ROW_NAME = "lifespan";
     public static final String LAST_USED_ROW_NAME = "last_used";
 
-    private static final Gson GSON = new GsonBuilder().setLenient().disableHtmlEscaping().create();
-
     private final Jdbi jdbi;
     private final String tableName;
+    @Nullable
+    private final ArgumentCodec argumentCodec;
+    @Nullable
+    private final LastUsedBuffer lastUsedBuffer;
+    private final ThreadLocal<SqlSession> session = new ThreadLocal<>();
+    private final SqlDialect dialect;
+    private final Statements statements;
+    private final RowMapper<Component> componentMapper;
 
     SqlComponentStorage(final Jdbi jdbi, final String tableName) {
-        this.jdbi = jdbi;
-        this.tableName = tableName;
+        this(new Builder(jdbi, tableName));
+    }
+
+    SqlComponentStorage(final Builder builder) {
+        this.jdbi = builder.jdbi;
+        this.tableName = builder.tableName;
+        this.argumentCodec = builder.argumentCodec;
+        this.dialect = builder.dialect;
+        this.statements = Statements.of(tableName, dialect);
+        this.componentMapper = (rs, ctx) -> new Component(rs.getString(FEATURE_ROW_NAME),
+                dialect.readId(rs, ID_ROW_NAME),
+                readArguments(argumentCodec, rs),
+                Component.Lifespan.valueOf(rs.getString(LIFESPAN_ROW_NAME)));
 
         // Install the SQL Objects and Guava plugins
         jdbi.installPlugin(new SqlObjectPlugin());
         jdbi.registerArgument(new ListArgumentFactory());
-        jdbi.registerRowMapper(Component.class, (rs, ctx) ->
-                new Component(rs.getString(FEATURE_ROW_NAME),
-                        UUID.fromString(rs.getString(ID_ROW_NAME)),
-                        listFromString(rs.getString(ARGUMENTS_ROW_NAME)),
-                        Component.Lifespan.valueOf(rs.getString(LIFESPAN_ROW_NAME))));
+        jdbi.registerRowMapper(Component.class, componentMapper);
         // Set default timezone to UTC
         jdbi.getConfig(TimestampedConfig.class).setTimezone(ZoneOffset.UTC);
+
+        switch (builder.schemaMode) {
+            case MIGRATE -> jdbi.useHandle(handle -> SqlComponentSchema.migrate(handle, tableName, dialect, argumentCodec != null));
+            case VALIDATE -> jdbi.useHandle(handle -> SqlComponentSchema.validate(handle, tableName));
+            case NONE -> {}
+        }
+
+        this.lastUsedBuffer = builder.writeBehind == null ? null : new LastUsedBuffer(builder.writeBehind);
     }
 
     @Override
     public void insertComponent(Component component) {
-        jdbi.useHandle(handle -> handle.createUpdate("insert into %s (%s, %s, %s, %s, %s) values (:feature, :id, :arguments, :lifespan, :last_used)".formatted(
-                        tableName, FEATURE_ROW_NAME, ID_ROW_NAME, ARGUMENTS_ROW_NAME, LIFESPAN_ROW_NAME, LAST_USED_ROW_NAME
-                ))
+        useHandle(handle -> handle.createUpdate(statements.insert())
                 .bind(FEATURE_ROW_NAME, component.featureId())
-                .bind(ID_ROW_NAME, component.uuid())
-                .bind(ARGUMENTS_ROW_NAME, component.arguments())
+                .bind(ID_ROW_NAME, dialect.idParameter(component.uuid()))
+                .bind(ARGUMENTS_ROW_NAME, writeArguments(argumentCodec, component.arguments()))
                 .bind(LIFESPAN_ROW_NAME, component.lifespan().toString())
                 .bind(LAST_USED_ROW_NAME, Instant.now())
                 .execute());
     }
 
+    /**
+     * {@inheritDoc} <br>
+     * The components are inserted in a single JDBC batch, in one transaction.
+     */
+    @Override
+    public void insertComponents(Collection<Component> components) {
+        if (components.isEmpty()) return;
+        final var now = Instant.now();
+        useHandle(handle -> handle.useTransaction(transaction -> {
+            final var batch = transaction.prepareBatch(statements.insert());
+            for (final var component : components) {
+                batch.bind(FEATURE_ROW_NAME, component.featureId())
+                        .bind(ID_ROW_NAME, dialect.idParameter(component.uuid()))
+                        .bind(ARGUMENTS_ROW_NAME, writeArguments(argumentCodec, component.arguments()))
+                        .bind(LIFESPAN_ROW_NAME, component.lifespan().toString())
+                        .bind(LAST_USED_ROW_NAME, now)
+                        .add();
+            }
+            batch.execute();
+        }));
+    }
+
     @Override
     public @NotNull Optional<Component> getComponent(UUID id) {
-        final var comp = jdbi.withHandle(handle -> handle.createQuery("select %s, %s, %s, %s from %s where %s = :id".formatted(
-                        FEATURE_ROW_NAME, ID_ROW_NAME, ARGUMENTS_ROW_NAME, LIFESPAN_ROW_NAME, tableName, ID_ROW_NAME
-                ))
-                .bind("id", id.toString())
-                .mapTo(Component.class)
-                .findOne());
-        comp.ifPresent(component -> setLastUsed(id, Instant.now()));
-        return comp;
+        if (lastUsedBuffer == null && statements.lookupAndTouch() != null) {
+            return withHandle(handle -> handle.createQuery(statements.lookupAndTouch())
+                    .bind("id", dialect.idParameter(id))
+                    .bind(LAST_USED_ROW_NAME, Instant.now())
+                    .map(componentMapper)
+                    .findOne());
+        }
+
+        // Look up the component and update its last usage time using the same handle
+        return withHandle(handle -> {
+            final var comp = handle.createQuery(statements.select())
+                    .bind("id", dialect.idParameter(id))
+                    .map(componentMapper)
+                    .findOne();
+            if (comp.isPresent()) {
+                if (lastUsedBuffer != null) {
+                    lastUsedBuffer.touch(id, Instant.now());
+                } else {
+                    updateLastUsed(handle, id, Instant.now());
+                }
+            }
+            return comp;
+        });
     }
 
     @Override
     public void updateArguments(UUID id, List<String> newArguments) {
-        jdbi.useHandle(handle -> handle.createUpdate("update %s set %s = :args, %s = :last_used where %s = :id".formatted(
-                        tableName, ARGUMENTS_ROW_NAME, LAST_USED_ROW_NAME, ID_ROW_NAME
-                ))
-                .bind("args", newArguments)
-                .bind("id", id.toString())
+        if (lastUsedBuffer != null) {
+            // The update sets the last usage time itself, so a pending touch would only overwrite it with an older value
+            lastUsedBuffer.pending.remove(id);
+        }
+        useHandle(handle -> handle.createUpdate(statements.updateArguments())
+                .bind("args", writeArguments(argumentCodec, newArguments))
+                .bind("id", dialect.idParameter(id))
                 .bind("last_used", Instant.now())
                 .execute());
     }
 
     @Override
     public void setLastUsed(UUID id, Instant lastUsed) {
-        jdbi.useHandle(handle -> handle.createUpdate("update %s set %s = :last_used where %s = :id".formatted(
-                        tableName, LAST_USED_ROW_NAME, ID_ROW_NAME
-                ))
+        if (lastUsedBuffer != null) {
+            lastUsedBuffer.touch(id, lastUsed);
+            return;
+        }
+        useHandle(handle -> updateLastUsed(handle, id, lastUsed));
+    }
+
+    /**
+     * {@inheritDoc} <br>
+     * The last usage times are updated in a single JDBC batch, unless this storage {@link Builder#writeBehind(ScheduledExecutorService, Duration, int) writes-behind},
+     * in which case they are buffered.
+     */
+    @Override
+    public void setLastUsed(Map<UUID, Instant> lastUsed) {
+        if (lastUsed.isEmpty()) return;
+        if (lastUsedBuffer != null) {
+            lastUsed.forEach(lastUsedBuffer::touch);
+            return;
+        }
+        useHandle(handle -> updateLastUsed(handle, lastUsed));
+    }
+
+    private void updateLastUsed(final Handle handle, final Map<UUID, Instant> lastUsed) {
+        final var update = handle.prepareBatch(statements.updateLastUsed());
+        lastUsed.forEach((id, time) -> update
+                .bind(LAST_USED_ROW_NAME, time)
+                .bind("id", dialect.idParameter(id))
+                .add());
+        update.execute();
+    }
+
+    private void updateLastUsed(final Handle handle, final UUID id, final Instant lastUsed) {
+        handle.createUpdate(statements.updateLastUsed())
                 .bind(LAST_USED_ROW_NAME, lastUsed)
-                .bind("id", id.toString())
-                .execute());
+                .bind("id", dialect.idParameter(id))
+                .execute();
     }
 
     @Override
     public void removeComponent(UUID id) {
-        jdbi.useHandle(handle -> handle.createUpdate("delete from %s where %s = :id".formatted(
-                        tableName, ID_ROW_NAME
-                ))
-                .bind("id", id)
+        if (lastUsedBuffer != null) {
+            lastUsedBuffer.pending.remove(id);
+        }
+        useHandle(handle -> handle.createUpdate(statements.delete())
+                .bind("id", dialect.idParameter(id))
                 .execute());
     }
 
     @Override
     public void removeComponentsLastUsedBefore(Instant before) {
-        jdbi.useHandle(handle -> handle.createUpdate("delete from %s where %s <= :before and %s == :lifespan".formatted(
-                        tableName, LAST_USED_ROW_NAME, LIFESPAN_ROW_NAME
-                ))
+        // Make sure that components which were used recently, but whose usage hasn't been written yet, survive
+        flush();
+        useHandle(handle -> handle.createUpdate(statements.deleteLastUsedBefore())
                 .bind("before", before)
                 .bind("lifespan", Component.Lifespan.TEMPORARY.toString())
                 .execute());
     }
 
-    private static final Type STRING_LIST_TYPE = new TypeToken<List<String>>() {}.getType();
+    @Override
+    public int removeComponentsLastUsedBefore(Instant before, int limit) {
+        flush();
+        return withHandle(handle -> handle.createUpdate(statements.deleteLastUsedBeforeLimited())
+                .bind("before", before)
+                .bind("lifespan", Component.Lifespan.TEMPORARY.toString())
+                .bind("limit", limit)
+                .execute());
+    }
+
+    @Override
+    public int removeComponentsByFeature(String featureId) {
+        return withHandle(handle -> handle.createUpdate(statements.deleteFeature())
+                .bind("feature", featureId)
+                .execute());
+    }
+
+    /**
+     * Writes all the buffered last usage times to the database, in a single batch. <br>
+     * This is a no-op if this storage doesn't {@link Builder#writeBehind(ScheduledExecutorService, Duration, int) write-behind}.
+     */
+    public void flush() {
+        if (lastUsedBuffer == null) return;
+        final var batch = lastUsedBuffer.drain();
+        if (batch.isEmpty()) return;
+        try {
+            jdbi.useHandle(handle -> updateLastUsed(handle, batch));
+        } catch (RuntimeException exception) {
+            lastUsedBuffer.requeue(batch);
+            throw exception;
+        }
+    }
+
+    /**
+     * {@inheritDoc} <br>
+     * The session lazily opens a handle, and begins a transaction on it, the first time the storage is used during the session.
+     * All the operations made from the thread of the session use that handle, and the transaction is committed when the session is closed.
+     */
+    @Override
+    public @NotNull Session openSession() {
+        if (session.get() != null) {
+            return Session.NONE;
+        }
+        final var newSession = new SqlSession();
+        session.set(newSession);
+        return newSession;
+    }
+
+    private void useHandle(final HandleConsumer<RuntimeException> consumer) {
+        withHandle(handle -> {
+            consumer.useHandle(handle);
+            return null;
+        });
+    }
 
-    private static List<String> listFromString(final String string) {
-        return GSON.fromJson(string, STRING_LIST_TYPE);
+    private <T> T withHandle(final HandleCallback<T, RuntimeException> callback) {
+        final var current = session.get();
+        return current == null ? jdbi.withHandle(callback) : callback.withHandle(current.handle());
+    }
+
+    private final class SqlSession implements Session {
+        @Nullable
+        private Handle handle;
+        private boolean failed;
+
+        Handle handle() {
+            if (handle == null) {
+                handle = jdbi.open();
+                handle.begin();
+            }
+            return handle;
+        }
+
+        @Override
+        public void rollback() {
+            failed = true;
+        }
+
+        @Override
+        public void close() {
+            session.remove();
+            if (handle != null) {
+                try (var toClose = handle) {
+                    if (failed) {
+                        toClose.rollback();
+                    } else {
+                        toClose.commit();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops the scheduled flushing of last usage times, and {@link #flush() flushes} the ones still buffered.
+     */
+    @Override
+    public void close() {
+        if (lastUsedBuffer != null) {
+            lastUsedBuffer.flushTask.cancel(false);
+            flush();
+        }
+    }
+
+    /**
+     * Creates a builder for a {@link SqlComponentStorage}.
+     *
+     * @param jdbi      the {@link Jdbi} instance to use for accessing the database
+     * @param tableName the name of the table that will store components
+     * @return the builder
+     * @see ComponentStorage#sql(Jdbi, String)
+     */
+    @NotNull
+    public static Builder builder(final Jdbi jdbi, final String tableName) {
+        return new Builder(jdbi, tableName);
+    }
+
+    public static final class Builder {
+        private final Jdbi jdbi;
+        private final String tableName;
+        @Nullable
+        private WriteBehind writeBehind;
+        @Nullable
+        private ArgumentCodec argumentCodec;
+        private SchemaMode schemaMode = SchemaMode.NONE;
+        private SqlDialect dialect = SqlDialect.GENERIC;
+
+        Builder(final Jdbi jdbi, final String tableName) {
+            this.jdbi = jdbi;
+            this.tableName = tableName;
+        }
+
+        /**
+         * Makes the storage buffer the last usage times of components in memory instead of writing them on every lookup. <br>
+         * Multiple usages of the same component are coalesced, and the buffer is written in a single batch
+         * either every {@code flushInterval}, or as soon as it holds {@code flushThreshold} components.
+         * Buffered usages are also written when the storage is {@link SqlComponentStorage#close() closed}, or before
+         * {@link SqlComponentStorage#removeComponentsLastUsedBefore(Instant) removing old components}.
+         *
+         * @param executor       the executor used for flushing the buffer
+         * @param flushInterval  the interval at which the buffer is flushed
+         * @param flushThreshold the amount of buffered components which triggers an early flush
+         * @return the builder instance
+         */
+        public Builder writeBehind(final ScheduledExecutorService executor, final Duration flushInterval, final int flushThreshold) {
+            if (flushThreshold < 1) {
+                throw new IllegalArgumentException("The flush threshold must be positive!");
+            }
+            this.writeBehind = new WriteBehind(executor, flushInterval, flushThreshold);
+            return this;
+        }
+
+        /**
+         * Makes the storage write the arguments of components as binary data, using the given {@code codec}. <br>
+         * The arguments column needs to be a binary column (e.g. {@code blob} or {@code bytea}) for this. Rows whose arguments
+         * are still stored as JSON text are read transparently, and are converted once their arguments are updated. <br>
+         * By default, arguments are stored as JSON text.
+         *
+         * @param codec the codec used for arguments, usually {@link ArgumentCodec#BINARY}
+         * @return the builder instance
+         */
+        public Builder argumentCodec(@Nullable final ArgumentCodec codec) {
+            this.argumentCodec = codec;
+            return this;
+        }
+
+        /**
+         * Sets the {@link SqlDialect dialect} of the database. Defaults to {@link SqlDialect#GENERIC}, which is compatible with tables
+         * created for older versions. Other dialects need a table with their column types, usually created using {@link SchemaMode#MIGRATE}.
+         *
+         * @param dialect the dialect
+         * @return the builder instance
+         */
+        public Builder dialect(final SqlDialect dialect) {
+            this.dialect = dialect;
+            return this;
+        }
+
+        /**
+         * Sets what the storage does with the schema of its table when it is built. Defaults to {@link SchemaMode#NONE}.
+         *
+         * @param schemaMode the schema mode
+         * @return the builder instance
+         */
+        public Builder schema(final SchemaMode schemaMode) {
+            this.schemaMode = schemaMode;
+            return this;
+        }
+
+        /**
+         * Builds the storage.
+         *
+         * @return the built storage
+         */
+        public SqlComponentStorage build() {
+            return new SqlComponentStorage(this);
+        }
+    }
+
+    /**
+     * What a {@link SqlComponentStorage} does with the schema of its table when it is built.
+     */
+    public enum SchemaMode {
+        /**
+         * The table is assumed to exist, and is used as-is.
+         */
+        NONE,
+        /**
+         * The table, the indexes that lookups and expiry sweeps need and the columns are checked,
+         * and an {@link IllegalStateException} is thrown if any of them is missing.
+         */
+        VALIDATE,
+        /**
+         * The table and its indexes are created, or upgraded, using versioned migrations. <br>
+         * The applied migrations are tracked in a {@code <table>_schema_version} table.
+         */
+        MIGRATE
+    }
+
+    /**
+     * The statements used by the storage, which are built once for its table.
+     */
+    record Statements(String insert, String select, String updateArguments, String updateLastUsed,
+                      String delete, String deleteLastUsedBefore, String deleteLastUsedBeforeLimited, String deleteFeature,
+                      @Nullable String lookupAndTouch) {
+        static Statements of(final String table, final SqlDialect dialect) {
+            return new Statements(
+                    dialect.insert(table),
+                    "select %s, %s, %s, %s from %s where %s = :id".formatted(
+                            FEATURE_ROW_NAME, ID_ROW_NAME, ARGUMENTS_ROW_NAME, LIFESPAN_ROW_NAME, table, ID_ROW_NAME),
+                    "update %s set %s = :args, %s = :last_used where %s = :id".formatted(
+                            table, ARGUMENTS_ROW_NAME, LAST_USED_ROW_NAME, ID_ROW_NAME),
+                    "update %s set %s = :last_used where %s = :id".formatted(
+                            table, LAST_USED_ROW_NAME, ID_ROW_NAME),
+                    "delete from %s where %s = :id".formatted(
+                            table, ID_ROW_NAME),
+                    "delete from %s where %s <= :before and %s = :lifespan".formatted(
+                            table, LAST_USED_ROW_NAME, LIFESPAN_ROW_NAME),
+                    dialect.deleteLastUsedBeforeLimited(table),
+                    "delete from %s where %s = :feature".formatted(
+                            table, FEATURE_ROW_NAME),
+                    dialect.lookupAndTouch(table)
+            );
+        }
+    }
+
+    record WriteBehind(ScheduledExecutorService executor, Duration flushInterval, int flushThreshold) {
+    }
+
+    private final class LastUsedBuffer {
+        private final Map<UUID, Instant> pending = new ConcurrentHashMap<>();
+        private final AtomicBoolean flushQueued = new AtomicBoolean();
+        private final ScheduledExecutorService executor;
+        private final int flushThreshold;
+        private final ScheduledFuture<?> flushTask;
+
+        LastUsedBuffer(final WriteBehind config) {
+            this.executor = config.executor();
+            this.flushThreshold = config.flushThreshold();
+            final long interval = config.flushInterval().toMillis();
+            this.flushTask = executor.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        }
+
+        void touch(final UUID id, final Instant lastUsed) {
+            pending.merge(id, lastUsed, LastUsedBuffer::latest);
+            if (pending.size() >= flushThreshold && flushQueued.compareAndSet(false, true)) {
+                executor.execute(() -> {
+                    try {
+                        flushQuietly();
+                    } finally {
+                        flushQueued.set(false);
+                    }
+                });
+            }
+        }
+
+        Map<UUID, Instant> drain() {
+            final Map<UUID, Instant> batch = new HashMap<>();
+            for (final var entry : pending.entrySet()) {
+                // Only take the entry if it wasn't touched again in the meantime, otherwise leave it for the next flush
+                if (pending.remove(entry.getKey(), entry.getValue())) {
+                    batch.put(entry.getKey(), entry.getValue());
+                }
+            }
+            return batch;
+        }
+
+        void requeue(final Map<UUID, Instant> batch) {
+            batch.forEach((id, lastUsed) -> pending.merge(id, lastUsed, LastUsedBuffer::latest));
+        }
+
+        private void flushQuietly() {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                // The batch was requeued, and will be retried on the next flush
+                LOGGER.error("Could not flush the last usage times of components in table {}", tableName, e);
+            }
+        }
+
+        private static Instant latest(final Instant first, final Instant second) {
+            return first.isAfter(second) ? first : second;
+        }
+    }
+
+    static Object writeArguments(@Nullable final ArgumentCodec argumentCodec, final List<String> arguments) {
+        return argumentCodec == null ? JsonArgumentCodec.toJson(arguments) : argumentCodec.encode(arguments);
+    }
+
+    static List<String> readArguments(@Nullable final ArgumentCodec argumentCodec, final ResultSet rs) throws SQLException {
+        final Object arguments = rs.getObject(ARGUMENTS_ROW_NAME);
+        if (arguments instanceof byte[] bytes) {
+            return (argumentCodec == null ? ArgumentCodec.JSON : argumentCodec).decode(bytes);
+        } else if (arguments instanceof Blob blob) {
+            return (argumentCodec == null ? ArgumentCodec.JSON : argumentCodec).decode(blob.getBytes(1, (int) blob.length()));
+        }
+        // Legacy JSON text
+        return JsonArgumentCodec.fromJson(rs.getString(ARGUMENTS_ROW_NAME));
     }
 
     public static final class ListArgumentFactory implements ArgumentFactory {
@@ -137,7 +557,7 @@ public class SqlComponentStorage implements ComponentStorage {
 
             @Override
             protected Argument build(java.util.List value, ConfigRegistry config) {
-                return (position, statement, ctx) -> statement.setString(position, GSON.toJson(value));
+                return (position, statement, ctx) -> statement.setString(position, JsonArgumentCodec.toJson(value));
             }
         }
 
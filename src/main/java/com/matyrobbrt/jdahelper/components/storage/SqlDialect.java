@@ -0,0 +1,117 @@
+package com.matyrobbrt.jdahelper.components.storage;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+/**
+ * A dialect of SQL, used by a {@link SqlComponentStorage} for the statements and column types which differ between databases. <br>
+ * Dialects other than the {@link #GENERIC generic} one store IDs in native UUID or binary columns, so they need a table
+ * created with their column types, usually by using {@link SqlComponentStorage.SchemaMode#MIGRATE}.
+ */
+@ParametersAreNonnullByDefault
+public interface SqlDialect {
+
+    /**
+     * A dialect which only uses standard SQL, and stores IDs as text. This is compatible with the tables of older versions.
+     */
+    SqlDialect GENERIC = new GenericSqlDialect();
+
+    /**
+     * The dialect of SQLite. IDs are stored as 16 byte blobs, and lookups update the last usage time using {@code update ... returning}.
+     */
+    SqlDialect SQLITE = new SqliteSqlDialect();
+
+    /**
+     * The dialect of PostgreSQL. IDs are stored in {@code uuid} columns, and lookups update the last usage time using {@code update ... returning}.
+     */
+    SqlDialect POSTGRESQL = new PostgresSqlDialect();
+
+    /**
+     * The dialect of H2. IDs are stored in {@code uuid} columns, and lookups update the last usage time using a {@code final table} query.
+     */
+    SqlDialect H2 = new H2SqlDialect();
+
+    /**
+     * The dialect of MySQL and MariaDB. IDs are stored in {@code binary(16)} columns.
+     */
+    SqlDialect MYSQL = new MySqlDialect();
+
+    /**
+     * Gets the type of the {@link SqlComponentStorage#ID_ROW_NAME ID} column.
+     *
+     * @return the column type
+     */
+    @NotNull
+    String idColumnType();
+
+    /**
+     * Gets the type of the {@link SqlComponentStorage#ARGUMENTS_ROW_NAME arguments} column, when arguments are stored as binary data.
+     *
+     * @return the column type
+     * @see SqlComponentStorage.Builder#argumentCodec(ArgumentCodec)
+     */
+    @NotNull
+    String binaryColumnType();
+
+    /**
+     * Gets the type of the {@link SqlComponentStorage#LAST_USED_ROW_NAME last usage time} column.
+     *
+     * @return the column type
+     */
+    @NotNull
+    String timestampColumnType();
+
+    /**
+     * Converts an ID to the value bound to statements.
+     *
+     * @param id the ID
+     * @return the value to bind
+     */
+    @NotNull
+    Object idParameter(UUID id);
+
+    /**
+     * Reads an ID from the current row of a result set.
+     *
+     * @param rs     the result set
+     * @param column the name of the ID column
+     * @return the ID
+     * @throws SQLException if the ID could not be read
+     */
+    @NotNull
+    UUID readId(ResultSet rs, String column) throws SQLException;
+
+    /**
+     * Creates the statement which inserts a component, binding the {@code :feature}, {@code :id}, {@code :arguments}, {@code :lifespan} and {@code :last_used} parameters. <br>
+     * Inserting a component with the ID of an existing one fails.
+     *
+     * @param table the name of the table
+     * @return the statement
+     */
+    @NotNull
+    String insert(String table);
+
+    /**
+     * Creates the statement which removes at most {@code :limit} components of the {@code :lifespan} lifespan, last used before {@code :before}.
+     *
+     * @param table the name of the table
+     * @return the statement
+     */
+    @NotNull
+    String deleteLastUsedBeforeLimited(String table);
+
+    /**
+     * Creates a query which sets the last usage time of the component with the ID {@code :id} to {@code :last_used},
+     * and returns its {@code feature}, {@code id}, {@code arguments} and {@code lifespan}, in a single statement.
+     *
+     * @param table the name of the table
+     * @return the query, or {@code null} if the database doesn't support it, in which case the component is selected and updated in 2 statements
+     */
+    @Nullable
+    String lookupAndTouch(String table);
+}
@@ -0,0 +1,325 @@
+package com.matyrobbrt.jdahelper.components.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.matyrobbrt.jdahelper.components.Component;
+import org.jetbrains.annotations.NotNull;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link ComponentStorage} with two tiers: a bounded in-memory hot tier, in front of a cold storage, usually a {@link SqlComponentStorage}. <br>
+ * Components are written through to the cold tier, so that they survive restarts, but lookups of hot components
+ * are served from memory, and their usage times are only kept in memory. <br>
+ * Components are demoted from the hot tier once it exceeds its {@link Config#hotMaximumSize() maximum size}, or after
+ * they {@link Config#demoteAfter() weren't used for a while}, at which point their last usage time is written to the cold tier.
+ * Cold components are promoted back to the hot tier when they are looked up. <br>
+ * Components written during a {@link Session session} are only promoted once the session is closed, so that changes which are rolled back aren't served.
+ */
+@ParametersAreNonnullByDefault
+public class TieredComponentStorage implements ComponentStorage {
+
+    private final ComponentStorage cold;
+    private final Cache<UUID, HotComponent> hot;
+    /**
+     * The IDs of the hot components whose last usage time may have changed since it was last written to the cold tier.
+     */
+    private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+    /**
+     * The time the last sweep removed the components last used before, in order to only flush once per sweep.
+     */
+    @Nullable
+    private volatile Instant lastSweepBefore;
+    private final SessionWrites sessionWrites = new SessionWrites();
+    private final Executor demotionExecutor;
+    /**
+     * The executor demotions are written on, if the storage created it, in which case it is shut down when the storage is closed.
+     */
+    @Nullable
+    private final ExecutorService ownedDemotionExecutor;
+
+    TieredComponentStorage(final ComponentStorage cold, final Config config) {
+        this.cold = cold;
+        if (config.demotionExecutor() == null) {
+            this.ownedDemotionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                final var thread = new Thread(runnable, "TieredComponentStorage-Demotion");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.demotionExecutor = ownedDemotionExecutor;
+        } else {
+            this.ownedDemotionExecutor = null;
+            this.demotionExecutor = config.demotionExecutor();
+        }
+        this.hot = Caffeine.newBuilder()
+                .maximumSize(config.hotMaximumSize())
+                .expireAfterAccess(config.demoteAfter())
+                .evictionListener(this::demote)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public void insertComponent(Component component) {
+        cold.insertComponent(component);
+        promote(component, System.currentTimeMillis());
+    }
+
+    @Override
+    public void insertComponents(Collection<Component> components) {
+        cold.insertComponents(components);
+        final var now = System.currentTimeMillis();
+        for (final var component : components) {
+            promote(component, now);
+        }
+    }
+
+    @Override
+    public void removeComponent(UUID id) {
+        cold.removeComponent(id);
+        hot.invalidate(id);
+        dirty.remove(id);
+    }
+
+    @Override
+    public void removeComponentsLastUsedBefore(Instant before) {
+        lastSweepBefore = before;
+        flush();
+        cold.removeComponentsLastUsedBefore(before);
+        removeHotLastUsedBefore(before);
+    }
+
+    @Override
+    public int removeComponentsLastUsedBefore(Instant before, int limit) {
+        // Sweeps remove the components in chunks with the same threshold, so only the first chunk flushes
+        if (!before.equals(lastSweepBefore)) {
+            lastSweepBefore = before;
+            flush();
+        }
+        final int removed = cold.removeComponentsLastUsedBefore(before, limit);
+        if (removed != 0) {
+            // Hot components the cold tier didn't get to remove yet will be promoted again on their next lookup
+            removeHotLastUsedBefore(before);
+        }
+        return removed;
+    }
+
+    @Override
+    public int removeComponentsByFeature(String featureId) {
+        final int removed = cold.removeComponentsByFeature(featureId);
+        hot.asMap().values().removeIf(component -> component.component.featureId().equals(featureId));
+        return removed;
+    }
+
+    @Override
+    public @NotNull Optional<Component> getComponent(UUID id) {
+        if (sessionWrites.isWritten(id)) {
+            return cold.getComponent(id);
+        }
+        final var now = System.currentTimeMillis();
+        final boolean[] promoted = new boolean[1];
+        final var component = hot.get(id, key -> {
+            promoted[0] = true;
+            // The cold tier updates the last usage time of the component on lookup, so the promoted component isn't dirty
+            return cold.getComponent(key).map(comp -> new HotComponent(comp, now)).orElse(null);
+        });
+        if (component == null) {
+            return Optional.empty();
+        }
+        if (!promoted[0]) {
+            component.lastUsed = Math.max(component.lastUsed, now);
+            dirty.add(id);
+        }
+        return Optional.of(component.component);
+    }
+
+    @Override
+    public void updateArguments(UUID id, List<String> newArguments) {
+        cold.updateArguments(id, newArguments);
+        if (sessionWrites.record(id)) {
+            demoteNow(id);
+            return;
+        }
+        // Computing waits for a promotion of the component which is in progress, which may have read the old arguments from the cold tier
+        hot.asMap().computeIfPresent(id, (key, component) -> {
+            final var old = component.component;
+            component.component = new Component(old.featureId(), old.uuid(), newArguments, old.lifespan());
+            return component;
+        });
+    }
+
+    @Override
+    public void setLastUsed(UUID id, Instant lastUsed) {
+        final var component = hot.getIfPresent(id);
+        if (component != null) {
+            component.lastUsed = lastUsed.toEpochMilli();
+            dirty.add(id);
+        } else {
+            cold.setLastUsed(id, lastUsed);
+        }
+    }
+
+    /**
+     * Writes the last usage times of the hot components that were used since they were last written to the cold tier, in a single
+     * {@link ComponentStorage#setLastUsed(Map) batch}.
+     */
+    public void flush() {
+        if (dirty.isEmpty()) return;
+        final Map<UUID, Instant> batch = new HashMap<>();
+        final Map<HotComponent, Long> written = new IdentityHashMap<>();
+        for (final var it = dirty.iterator(); it.hasNext(); ) {
+            final var id = it.next();
+            it.remove();
+            // Demoted components are written by the demotion itself
+            final var component = hot.policy().getIfPresentQuietly(id);
+            if (component == null) continue;
+            final long lastUsed = component.lastUsed;
+            if (lastUsed != component.persistedLastUsed) {
+                batch.put(id, Instant.ofEpochMilli(lastUsed));
+                written.put(component, lastUsed);
+            }
+        }
+        if (batch.isEmpty()) return;
+        try {
+            cold.setLastUsed(batch);
+        } catch (RuntimeException exception) {
+            dirty.addAll(batch.keySet());
+            throw exception;
+        }
+        written.forEach((component, lastUsed) -> component.persistedLastUsed = lastUsed);
+    }
+
+    @Override
+    public @NotNull Session openSession() {
+        return sessionWrites.open(cold.openSession(), ids -> ids.forEach(this::demoteNow));
+    }
+
+    /**
+     * Flushes the hot tier, and closes the cold tier.
+     */
+    @Override
+    public void close() {
+        if (ownedDemotionExecutor != null) {
+            ownedDemotionExecutor.shutdown();
+            try {
+                if (!ownedDemotionExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    ownedDemotionExecutor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        cold.close();
+    }
+
+    /**
+     * Gets the amount of components in the hot tier.
+     *
+     * @return the approximate size of the hot tier
+     */
+    public long hotSize() {
+        return hot.estimatedSize();
+    }
+
+    /**
+     * Gets the statistics of the hot tier, which can be used for sizing it.
+     *
+     * @return the statistics of the hot tier, with evictions being demotions
+     */
+    @NotNull
+    public CachedComponentStorage.CacheStats stats() {
+        final var stats = hot.stats();
+        return new CachedComponentStorage.CacheStats(stats.hitCount(), stats.missCount(), stats.evictionCount());
+    }
+
+    private void demote(@Nullable final UUID id, @Nullable final HotComponent component, final RemovalCause cause) {
+        if (id != null && component != null && component.lastUsed != component.persistedLastUsed) {
+            // Eviction listeners run while Caffeine evicts, so the blocking write to the cold tier happens on another thread
+            demotionExecutor.execute(() -> persistLastUsed(id, component));
+        }
+    }
+
+    private void promote(final Component component, final long lastUsed) {
+        if (sessionWrites.record(component.uuid())) {
+            demoteNow(component.uuid());
+        } else {
+            hot.put(component.uuid(), new HotComponent(component, lastUsed));
+        }
+    }
+
+    private void demoteNow(final UUID id) {
+        final var component = hot.asMap().remove(id);
+        if (component != null) {
+            demote(id, component, RemovalCause.EXPLICIT);
+        }
+    }
+
+    private void persistLastUsed(final UUID id, final HotComponent component) {
+        final long lastUsed = component.lastUsed;
+        if (lastUsed != component.persistedLastUsed) {
+            component.persistedLastUsed = lastUsed;
+            cold.setLastUsed(id, Instant.ofEpochMilli(lastUsed));
+        }
+    }
+
+    private void removeHotLastUsedBefore(final Instant before) {
+        final long beforeMillis = before.toEpochMilli();
+        hot.asMap().values().removeIf(component -> component.component.lifespan() == Component.Lifespan.TEMPORARY && component.lastUsed <= beforeMillis);
+    }
+
+    private static final class HotComponent {
+        private volatile Component component;
+        private volatile long lastUsed;
+        private volatile long persistedLastUsed;
+
+        private HotComponent(final Component component, final long lastUsed) {
+            this.component = component;
+            this.lastUsed = lastUsed;
+            this.persistedLastUsed = lastUsed;
+        }
+    }
+
+    /**
+     * The configuration of a {@link TieredComponentStorage}.
+     *
+     * @param hotMaximumSize   the maximum amount of components the hot tier may hold
+     * @param demoteAfter      how long a component may stay in the hot tier without being used
+     * @param demotionExecutor the executor the last usage times of demoted components are written to the cold tier on,
+     *                         or {@code null} to write them on a thread owned by the storage
+     */
+    public record Config(long hotMaximumSize, Duration demoteAfter, @Nullable Executor demotionExecutor) {
+        public Config {
+            if (hotMaximumSize < 0) {
+                throw new IllegalArgumentException("The maximum size of the hot tier cannot be negative!");
+            }
+        }
+
+        /**
+         * Creates a configuration which writes demotions on a thread owned by the storage.
+         *
+         * @param hotMaximumSize the maximum amount of components the hot tier may hold
+         * @param demoteAfter    how long a component may stay in the hot tier without being used
+         */
+        public Config(long hotMaximumSize, Duration demoteAfter) {
+            this(hotMaximumSize, demoteAfter, null);
+        }
+    }
+}
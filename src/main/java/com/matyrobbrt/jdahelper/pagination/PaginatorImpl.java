@@ -14,10 +14,14 @@ import org.jetbrains.annotations.NotNull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 import java.util.function.Consumer;
 
 public final class PaginatorImpl implements Paginator {
+    /**
+     * The length of a component ID in the legacy {@link java.util.UUID#toString() UUID} format.
+     */
+    private static final int LEGACY_ID_LENGTH = 36;
+
     private final ComponentListener listener;
     private final Component.Lifespan lifespan;
     private final int itemsPerPage;
@@ -73,7 +77,7 @@ public final class PaginatorImpl implements Paginator {
         final var oldActionRows = oldActionRowsSize < 2 ? new ArrayList<ActionRow>() :
                 new ArrayList<>(event.getMessage().getActionRows().subList(1, oldActionRowsSize));
 
-        final var buttonId = context.getComponentId().toString();
+        final var buttonId = getListener().createId(context.getComponentId());
 
         final var buttonType = ButtonType.byId(context.getItemComponentArguments().get(0));
         if (buttonType == null) return;
@@ -217,7 +221,9 @@ public final class PaginatorImpl implements Paginator {
     }
 
     private String resolveButtonId(final String baseId, final ButtonType type, final @Nullable Long buttonOwner) {
-        return Component.createIdWithArguments(baseId, areButtonsOwnerOnly() ? new Object[] {type, buttonOwner} : new Object[] {type});
+        final var args = areButtonsOwnerOnly() ? new Object[] {type, buttonOwner} : new Object[] {type};
+        // Keep the legacy splitter for IDs in the legacy UUID format
+        return baseId.length() == LEGACY_ID_LENGTH ? Component.createIdWithArguments(baseId, args) : Component.createCompactIdWithArguments(baseId, args);
     }
 
     @NotNull
@@ -228,7 +234,7 @@ public final class PaginatorImpl implements Paginator {
 
     @Override
     public MessageCreateData createPaginatedMessage(final int startingIndex, final int maximum, final @Nullable Long messageOwner, final List<String> args) {
-        final var id = UUID.randomUUID();
+        final var id = getListener().generateId();
         final var argsList = new ArrayList<>(args);
         final var message = getMessage(startingIndex, maximum, argsList);
         final var startStr = String.valueOf(startingIndex);
@@ -242,7 +248,7 @@ public final class PaginatorImpl implements Paginator {
         }
         final var component = new Component(getListener().getName(), id, argsList, Component.Lifespan.TEMPORARY);
         getListener().insertComponent(component);
-        message.addComponents(createScrollButtons(id.toString(), startingIndex, maximum, messageOwner));
+        message.addComponents(createScrollButtons(getListener().createId(id), startingIndex, maximum, messageOwner));
         return message.build();
     }
 }
@@ -0,0 +1,84 @@
+package com.matyrobbrt.jdahelper.components.storage;
+
+import com.matyrobbrt.jdahelper.components.Component;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the recovery of a {@link LogComponentStorage} when it is reopened.
+ */
+class LogComponentStorageTest {
+    private static final LogComponentStorage.Config CONFIG = new LogComponentStorage.Config(4096, Duration.ZERO, 0.5, false);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysTheLog() {
+        final var kept = new Component("feature", UUID.randomUUID(), List.of("a"));
+        final var updated = new Component("feature", UUID.randomUUID(), List.of("a"));
+        final var removed = new Component("feature", UUID.randomUUID(), List.of());
+        try (final var storage = ComponentStorage.log(directory, CONFIG)) {
+            storage.insertComponents(List.of(kept, updated, removed));
+            storage.updateArguments(updated.uuid(), List.of("b"));
+            storage.removeComponent(removed.uuid());
+        }
+
+        try (final var storage = ComponentStorage.log(directory, CONFIG)) {
+            assertEquals(kept, storage.getComponent(kept.uuid()).orElseThrow());
+            assertEquals(List.of("b"), storage.getComponent(updated.uuid()).orElseThrow().arguments());
+            assertTrue(storage.getComponent(removed.uuid()).isEmpty());
+        }
+    }
+
+    @Test
+    void compactionSurvivesACrashBeforeDeletingOldSegments() throws IOException {
+        final List<Component> components = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            components.add(new Component("feature", UUID.randomUUID(), List.of(String.valueOf(i))));
+        }
+        final var removed = components.subList(0, 100);
+
+        final Map<Path, byte[]> oldSegments = new HashMap<>();
+        try (final var storage = ComponentStorage.log(directory, CONFIG)) {
+            storage.insertComponents(components);
+            removed.forEach(component -> storage.removeComponent(component.uuid()));
+
+            // Keep the segments which compaction is about to delete, in order to restore them as if the process crashed before deleting them
+            try (final var files = Files.list(directory)) {
+                for (final var file : (Iterable<Path>) files::iterator) {
+                    oldSegments.put(file, Files.readAllBytes(file));
+                }
+            }
+            assertTrue(oldSegments.size() > 2, "The log should span several segments");
+            storage.compact();
+        }
+        for (final var segment : oldSegments.entrySet()) {
+            if (Files.notExists(segment.getKey())) {
+                Files.write(segment.getKey(), segment.getValue());
+            }
+        }
+
+        try (final var storage = ComponentStorage.log(directory, CONFIG)) {
+            for (final var component : removed) {
+                assertTrue(storage.getComponent(component.uuid()).isEmpty(), "Removed component " + component.uuid() + " was resurrected");
+            }
+            for (final var component : components.subList(100, 200)) {
+                assertEquals(component, storage.getComponent(component.uuid()).orElseThrow());
+            }
+        }
+    }
+}
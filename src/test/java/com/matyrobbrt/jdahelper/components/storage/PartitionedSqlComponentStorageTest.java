@@ -0,0 +1,54 @@
+package com.matyrobbrt.jdahelper.components.storage;
+
+import com.matyrobbrt.jdahelper.components.Component;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the {@link PartitionedSqlComponentStorage} against an embedded H2 database.
+ */
+class PartitionedSqlComponentStorageTest {
+
+    private static PartitionedSqlComponentStorage create(final String tableName) {
+        return PartitionedSqlComponentStorage.builder(Jdbi.create("jdbc:h2:mem:" + tableName + ";DB_CLOSE_DELAY=-1"), tableName)
+                .dialect(SqlDialect.H2)
+                .partitionPeriod(Duration.ofHours(1))
+                .build();
+    }
+
+    /**
+     * Creates a time-ordered ID with the given timestamp, like the ones {@link com.matyrobbrt.jdahelper.components.ComponentIdGenerator#TIME_ORDERED generated}
+     * when the counter borrows timestamps from the future, or by a process whose clock is ahead.
+     */
+    private static UUID timeOrderedId(final Instant timestamp) {
+        final long msb = timestamp.toEpochMilli() << 16 | 0x7000L;
+        final long lsb = ThreadLocalRandom.current().nextLong() >>> 2 | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    @Test
+    void findsComponentsWithIdsFromFuturePartitions() {
+        final var storage = create("future_ids");
+        final var component = new Component("feature", timeOrderedId(Instant.now().plus(Duration.ofHours(3))), List.of("a"));
+        final var batched = new Component("feature", timeOrderedId(Instant.now().plus(Duration.ofHours(5))), List.of("b"));
+        storage.insertComponent(component);
+        storage.insertComponents(List.of(batched));
+
+        assertEquals(component, storage.getComponent(component.uuid()).orElseThrow());
+        assertEquals(batched, storage.getComponent(batched.uuid()).orElseThrow());
+
+        storage.updateArguments(component.uuid(), List.of("c"));
+        assertEquals(List.of("c"), storage.getComponent(component.uuid()).orElseThrow().arguments());
+        storage.removeComponent(batched.uuid());
+        assertTrue(storage.getComponent(batched.uuid()).isEmpty());
+    }
+}
@@ -0,0 +1,107 @@
+package com.matyrobbrt.jdahelper.components.storage;
+
+import com.matyrobbrt.jdahelper.components.Component;
+import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the {@link SqlComponentStorage} against embedded H2 and SQLite databases, with both their own and the generic dialect.
+ */
+class SqlComponentStorageTest {
+    private static final AtomicInteger TABLES = new AtomicInteger();
+
+    @TempDir
+    static Path directory;
+
+    static Stream<Arguments> databases() {
+        final var h2 = Jdbi.create("jdbc:h2:mem:components;DB_CLOSE_DELAY=-1");
+        final var sqlite = Jdbi.create("jdbc:sqlite:" + directory.resolve("components.db"));
+        return Stream.of(
+                Arguments.of(h2, SqlDialect.H2, null),
+                Arguments.of(h2, SqlDialect.H2, ArgumentCodec.BINARY),
+                Arguments.of(h2, SqlDialect.GENERIC, null),
+                Arguments.of(sqlite, SqlDialect.SQLITE, null),
+                Arguments.of(sqlite, SqlDialect.SQLITE, ArgumentCodec.BINARY),
+                Arguments.of(sqlite, SqlDialect.GENERIC, null)
+        );
+    }
+
+    private static SqlComponentStorage create(final Jdbi jdbi, final SqlDialect dialect, final ArgumentCodec codec) {
+        return SqlComponentStorage.builder(jdbi, "components_" + TABLES.getAndIncrement())
+                .dialect(dialect)
+                .argumentCodec(codec)
+                .schema(SqlComponentStorage.SchemaMode.MIGRATE)
+                .build();
+    }
+
+    @ParameterizedTest
+    @MethodSource("databases")
+    void insertsAndReadsComponents(final Jdbi jdbi, final SqlDialect dialect, final ArgumentCodec codec) {
+        final var storage = create(jdbi, dialect, codec);
+        final var component = new Component("feature", UUID.randomUUID(), List.of("a", "b"));
+        final var permanent = new Component("feature", UUID.randomUUID(), List.of(), Component.Lifespan.PERMANENT);
+        storage.insertComponent(component);
+        storage.insertComponents(List.of(permanent));
+
+        assertEquals(component, storage.getComponent(component.uuid()).orElseThrow());
+        assertEquals(permanent, storage.getComponent(permanent.uuid()).orElseThrow());
+        assertTrue(storage.getComponent(UUID.randomUUID()).isEmpty());
+    }
+
+    @ParameterizedTest
+    @MethodSource("databases")
+    void rejectsDuplicateIds(final Jdbi jdbi, final SqlDialect dialect, final ArgumentCodec codec) {
+        final var storage = create(jdbi, dialect, codec);
+        final var component = new Component("feature", UUID.randomUUID(), List.of("original"));
+        storage.insertComponent(component);
+
+        assertThrows(RuntimeException.class, () -> storage.insertComponent(new Component("other", component.uuid(), List.of("duplicate"))));
+        assertThrows(RuntimeException.class, () -> storage.insertComponents(List.of(new Component("other", component.uuid(), List.of("duplicate")))));
+        assertEquals(component, storage.getComponent(component.uuid()).orElseThrow());
+    }
+
+    @ParameterizedTest
+    @MethodSource("databases")
+    void updatesAndRemovesComponents(final Jdbi jdbi, final SqlDialect dialect, final ArgumentCodec codec) {
+        final var storage = create(jdbi, dialect, codec);
+        final var component = new Component("feature", UUID.randomUUID(), List.of("a"));
+        storage.insertComponent(component);
+
+        storage.updateArguments(component.uuid(), List.of("b", "c"));
+        assertEquals(List.of("b", "c"), storage.getComponent(component.uuid()).orElseThrow().arguments());
+
+        storage.removeComponent(component.uuid());
+        assertTrue(storage.getComponent(component.uuid()).isEmpty());
+    }
+
+    @ParameterizedTest
+    @MethodSource("databases")
+    void removesExpiredTemporaryComponents(final Jdbi jdbi, final SqlDialect dialect, final ArgumentCodec codec) {
+        final var storage = create(jdbi, dialect, codec);
+        final var expired = new Component("feature", UUID.randomUUID(), List.of());
+        final var recent = new Component("feature", UUID.randomUUID(), List.of());
+        final var permanent = new Component("feature", UUID.randomUUID(), List.of(), Component.Lifespan.PERMANENT);
+        storage.insertComponents(List.of(expired, recent, permanent));
+        storage.setLastUsed(expired.uuid(), Instant.now().minusSeconds(3600));
+        storage.setLastUsed(permanent.uuid(), Instant.now().minusSeconds(3600));
+
+        assertEquals(1, storage.removeComponentsLastUsedBefore(Instant.now().minusSeconds(60), 10));
+        assertTrue(storage.getComponent(expired.uuid()).isEmpty());
+        assertEquals(recent, storage.getComponent(recent.uuid()).orElseThrow());
+        assertEquals(permanent, storage.getComponent(permanent.uuid()).orElseThrow());
+    }
+}